@@ -0,0 +1,21 @@
+package ru.zeker.common.dto.judge0.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchSubmissionRequest {
+
+    @Valid
+    @NotEmpty
+    private List<SubmissionRequest> submissions;
+}
@@ -26,4 +26,19 @@ public class SubmissionRequest {
 
     @JsonProperty("expected_output")
     private String expectedOutput;
+
+    @JsonProperty("callback_url")
+    private String callbackUrl;
+
+    /**
+     * Лимиты в секундах и килобайтах; null - значения Judge0 по умолчанию
+     */
+    @JsonProperty("cpu_time_limit")
+    private Float cpuTimeLimit;
+
+    @JsonProperty("wall_time_limit")
+    private Float wallTimeLimit;
+
+    @JsonProperty("memory_limit")
+    private Integer memoryLimit;
 }
@@ -12,6 +12,7 @@ import lombok.NoArgsConstructor;
 @Builder
 public class SubmissionResponse {
 
+    private String token;
     private String stdout;
     private String stderr;
     @JsonProperty("compile_output")
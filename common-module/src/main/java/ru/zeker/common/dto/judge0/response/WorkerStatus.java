@@ -0,0 +1,31 @@
+package ru.zeker.common.dto.judge0.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Состояние очереди воркеров Judge0 (GET /workers)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class WorkerStatus {
+
+    private String queue;
+
+    /**
+     * Сабмишенов в очереди
+     */
+    private Integer size;
+
+    private Integer available;
+    private Integer idle;
+    private Integer working;
+    private Integer paused;
+    private Integer failed;
+}
@@ -0,0 +1,12 @@
+package ru.zeker.common.dto.kafka.solution;
+
+public enum ExecutionPriority {
+    /**
+     * Решение, которое ждёт пользователь
+     */
+    NORMAL,
+    /**
+     * Фоновая перепроверка: выполняется в отдельной очереди с ограниченной долей мощности
+     */
+    BACKGROUND
+}
@@ -0,0 +1,23 @@
+package ru.zeker.common.dto.kafka.solution;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат одного теста, опубликованный сразу по его завершении, до итогового SolutionExecResult
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SolutionExecProgress {
+
+    private String solutionId;
+    private int testIndex;
+    private int testCount;
+    private TestResult testResult;
+}
@@ -6,9 +6,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import ru.zeker.common.dto.solution.Language;
+import ru.zeker.common.dto.task.OutputCheckMode;
 import ru.zeker.common.dto.task.TestCase;
 
 import java.util.List;
+import java.util.UUID;
 
 @Data
 @AllArgsConstructor
@@ -18,7 +20,23 @@ import java.util.List;
 public class SolutionExecRequest {
 
     private String solutionId;
+    private UUID taskId;
+    private UUID userId;
     private Language language;
     private String code;
+    /**
+     * Тесты в сообщении только для задач без версии набора; иначе sandbox-service
+     * получает их по taskId и testsVersion
+     */
     private List<TestCase> tests;
+    private String testsVersion;
+    private OutputCheckMode checkMode;
+    /**
+     * null - NORMAL
+     */
+    private ExecutionPriority priority;
+    /**
+     * Задание перепроверки, запустившее выполнение; null - решение отправил пользователь
+     */
+    private UUID rejudgeJobId;
 }
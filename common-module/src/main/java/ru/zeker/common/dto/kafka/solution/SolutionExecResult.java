@@ -7,6 +7,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import ru.zeker.common.dto.solution.SolutionStatus;
 
+import java.util.List;
+import java.util.UUID;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -15,6 +18,23 @@ import ru.zeker.common.dto.solution.SolutionStatus;
 public class SolutionExecResult {
 
     private String solutionId;
+    /**
+     * Ключ сообщения: результаты одного пользователя идут через одну партицию по порядку.
+     * null у сообщений старых версий sandbox-service
+     */
+    private UUID userId;
     private SolutionStatus status;
     private String descriptionError;
+    /**
+     * Завершённые тесты; при остановке на первой ошибке - не все, номер каждого в {@link TestResult#getIndex()}
+     */
+    private List<TestResult> testResults;
+    /**
+     * Число тестов в прогоне; null у сообщений старых версий sandbox-service
+     */
+    private Integer testCount;
+    /**
+     * Копия {@link SolutionExecRequest#getRejudgeJobId()}: результат перепроверки не меняет вердикт решения
+     */
+    private UUID rejudgeJobId;
 }
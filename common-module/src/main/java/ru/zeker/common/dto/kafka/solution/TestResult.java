@@ -13,8 +13,15 @@ import lombok.NoArgsConstructor;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class TestResult {
 
-    private String input;
-    private String expected;
+    /**
+     * Номер теста в наборе; null у сообщений старых версий sandbox-service
+     */
+    private Integer index;
+
+    // Вход и ожидаемый вывод не передаются: набор тестов скрыт от пользователя и уже есть у получателей по ссылке
+    /**
+     * Начало фактического вывода, не длиннее sandbox.checker.actual-preview-chars
+     */
     private String actual;
     private boolean passed;
     private int timeMs;
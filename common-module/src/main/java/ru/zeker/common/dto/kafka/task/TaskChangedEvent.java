@@ -0,0 +1,23 @@
+package ru.zeker.common.dto.kafka.task;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Задача изменена или удалена, закэшированные копии нужно сбросить
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TaskChangedEvent {
+
+    private UUID taskId;
+    private boolean deleted;
+}
@@ -0,0 +1,23 @@
+package ru.zeker.common.dto.kafka.task;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Набор тестов задачи изменился, принятые решения нужно перепроверить
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TaskTestsChangedEvent {
+
+    private UUID taskId;
+    private String testsVersion;
+}
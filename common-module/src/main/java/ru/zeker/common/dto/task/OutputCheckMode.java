@@ -0,0 +1,19 @@
+package ru.zeker.common.dto.task;
+
+/**
+ * Способ сравнения вывода решения с ожидаемым выводом теста
+ */
+public enum OutputCheckMode {
+    /**
+     * Посимвольное совпадение, без учёта пробельных символов в конце вывода
+     */
+    EXACT,
+    /**
+     * Совпадение последовательности токенов, разделённых любыми пробельными символами
+     */
+    WHITESPACE,
+    /**
+     * Как WHITESPACE, но числа сравниваются с допустимой погрешностью
+     */
+    FLOAT_TOLERANCE
+}
@@ -10,6 +10,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import ru.zeker.common.dto.task.Difficulty;
+import ru.zeker.common.dto.task.OutputCheckMode;
 import ru.zeker.common.dto.task.TestCase;
 
 import java.util.List;
@@ -37,4 +38,9 @@ public class TaskRequest {
 
     @NotEmpty
     private List<TestCase> tests;
+
+    /**
+     * Способ проверки вывода, по умолчанию EXACT
+     */
+    private OutputCheckMode checkMode;
 }
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import ru.zeker.common.dto.task.Difficulty;
+import ru.zeker.common.dto.task.OutputCheckMode;
 import ru.zeker.common.dto.task.TestCase;
 
 import java.util.List;
@@ -24,4 +25,6 @@ public class TaskResponse {
     private Set<String> tags;
     private String templateCode;
     private List<TestCase> tests;
+    private String testsVersion;
+    private OutputCheckMode checkMode;
 }
@@ -0,0 +1,21 @@
+package ru.zeker.common.dto.task.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.zeker.common.dto.task.TestCase;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TestSuiteResponse {
+
+    private UUID taskId;
+    private String version;
+    private List<TestCase> tests;
+}
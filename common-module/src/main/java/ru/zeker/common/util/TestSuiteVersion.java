@@ -0,0 +1,42 @@
+package ru.zeker.common.util;
+
+import ru.zeker.common.dto.task.TestCase;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Версия набора тестов - SHA-256 от входов и ожидаемых выводов по порядку.
+ * Одинаковые наборы дают одинаковую версию, любое изменение теста - новую
+ */
+public final class TestSuiteVersion {
+    private TestSuiteVersion() {}
+
+    public static String of(List<TestCase> tests) {
+        MessageDigest digest = sha256();
+        for (TestCase test : tests) {
+            update(digest, test.getInput());
+            update(digest, test.getOutput());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // Длина перед значением, чтобы ("ab", "c") и ("a", "bc") давали разные хэши
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.zeker.fakejudge0;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class FakeJudge0Application {
+
+    public static void main(String[] args) {
+        SpringApplication.run(FakeJudge0Application.class, args);
+    }
+
+}
@@ -0,0 +1,86 @@
+package ru.zeker.fakejudge0.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import ru.zeker.fakejudge0.domain.model.enums.LatencyDistribution;
+import ru.zeker.fakejudge0.domain.model.enums.Verdict;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "fake-judge0")
+public class FakeJudge0Properties {
+    /**
+     * Число воркеров: столько сабмишенов выполняется одновременно, остальные ждут в очереди
+     */
+    private int workers = 8;
+
+    /**
+     * При такой очереди новые сабмишены отклоняются с 503, как в Judge0 при MAX_QUEUE_SIZE
+     */
+    private int maxQueueSize = 10_000;
+
+    /**
+     * Задержка ответа на любой HTTP-запрос до его обработки
+     */
+    private Latency requestLatency = new Latency();
+
+    /**
+     * Время выполнения сабмишена воркером
+     */
+    private Latency executionLatency = new Latency();
+
+    /**
+     * Время выполнения по language_id; не заданные языки берут executionLatency
+     */
+    private Map<Integer, Latency> languageLatency = new HashMap<>();
+
+    /**
+     * Доля HTTP-запросов, на которые отвечаем 503 без обработки
+     */
+    private double errorRate;
+
+    /**
+     * Веса итоговых статусов; по умолчанию все сабмишены Accepted
+     */
+    private Map<Verdict, Double> verdicts = new EnumMap<>(Map.of(Verdict.ACCEPTED, 1.0));
+
+    /**
+     * Память, которую показывает каждый запуск, в килобайтах
+     */
+    private float memoryKb = 16_384;
+
+    /**
+     * Сколько хранить результаты для опроса по токену
+     */
+    private Duration retention = Duration.ofMinutes(10);
+
+    /**
+     * Seed генератора для повторяемых прогонов; null - случайный
+     */
+    private Long seed;
+
+    @Data
+    public static class Latency {
+        private LatencyDistribution distribution = LatencyDistribution.FIXED;
+
+        private Duration median = Duration.ZERO;
+
+        /**
+         * Используется только LOG_NORMAL
+         */
+        private Duration p99 = Duration.ZERO;
+
+        /**
+         * Границы выборки; для UNIFORM - сам диапазон
+         */
+        private Duration min = Duration.ZERO;
+
+        private Duration max = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,32 @@
+package ru.zeker.fakejudge0.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.zeker.fakejudge0.service.LatencySampler;
+
+import java.io.IOException;
+
+/**
+ * Задержка перед обработкой каждого запроса и случайные отказы 503
+ */
+@Component
+@RequiredArgsConstructor
+public class FaultInjectionInterceptor implements HandlerInterceptor {
+
+    private final LatencySampler sampler;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException, InterruptedException {
+        Thread.sleep(sampler.requestLatency());
+        if (sampler.injectFailure()) {
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "simulated failure");
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.zeker.fakejudge0.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.zeker.common.dto.judge0.request.BatchSubmissionRequest;
+import ru.zeker.common.dto.judge0.request.SubmissionRequest;
+import ru.zeker.common.dto.judge0.response.BatchSubmissionResponse;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.common.dto.judge0.response.SubmissionToken;
+import ru.zeker.common.dto.judge0.response.WorkerStatus;
+import ru.zeker.fakejudge0.service.SubmissionSimulator;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Подмножество API Judge0, которое использует sandbox-service.
+ * Параметр fields игнорируется, ответ всегда содержит все поля
+ */
+@RestController
+@RequiredArgsConstructor
+public class SubmissionController {
+
+    private final SubmissionSimulator simulator;
+
+    @PostMapping("/submissions")
+    public ResponseEntity<?> submit(
+            @RequestBody SubmissionRequest request,
+            @RequestParam(value = "base64_encoded", defaultValue = "false") boolean base64Encoded,
+            @RequestParam(value = "wait", defaultValue = "false") boolean wait
+    ) {
+        SubmissionSimulator.Submission submission = simulator.submit(request, base64Encoded);
+        Object body = wait ? submission.result().join() : new SubmissionToken(submission.token());
+        return ResponseEntity.status(HttpStatus.CREATED).body(body);
+    }
+
+    @PostMapping("/submissions/batch")
+    public ResponseEntity<List<SubmissionToken>> submitBatch(
+            @RequestBody BatchSubmissionRequest request,
+            @RequestParam(value = "base64_encoded", defaultValue = "false") boolean base64Encoded
+    ) {
+        List<SubmissionToken> tokens = request.getSubmissions().stream()
+                .map(submission -> new SubmissionToken(simulator.submit(submission, base64Encoded).token()))
+                .toList();
+        return ResponseEntity.status(HttpStatus.CREATED).body(tokens);
+    }
+
+    @GetMapping("/submissions/batch")
+    public BatchSubmissionResponse getSubmissions(@RequestParam("tokens") String tokens) {
+        // Неизвестные и истёкшие токены возвращаются как null, как в Judge0
+        List<SubmissionResponse> submissions = Arrays.stream(tokens.split(","))
+                .map(String::trim)
+                .map(simulator::get)
+                .toList();
+        return new BatchSubmissionResponse(submissions);
+    }
+
+    @GetMapping("/submissions/{token}")
+    public ResponseEntity<SubmissionResponse> getSubmission(@PathVariable("token") String token) {
+        SubmissionResponse submission = simulator.get(token);
+        return submission == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(submission);
+    }
+
+    @GetMapping("/workers")
+    public List<WorkerStatus> getWorkers() {
+        return simulator.workers();
+    }
+}
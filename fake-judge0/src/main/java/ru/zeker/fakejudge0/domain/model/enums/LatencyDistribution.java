@@ -0,0 +1,16 @@
+package ru.zeker.fakejudge0.domain.model.enums;
+
+public enum LatencyDistribution {
+    /**
+     * Всегда median
+     */
+    FIXED,
+    /**
+     * Равномерно от min до max
+     */
+    UNIFORM,
+    /**
+     * Логнормальное распределение с заданными медианой и p99 - длинный хвост, как у реальных запусков
+     */
+    LOG_NORMAL
+}
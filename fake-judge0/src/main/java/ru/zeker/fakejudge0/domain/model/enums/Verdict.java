@@ -0,0 +1,29 @@
+package ru.zeker.fakejudge0.domain.model.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.zeker.common.dto.judge0.response.Status;
+
+/**
+ * Итоговые статусы, которые выдаёт имитация; id и описания как в Judge0
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Verdict {
+    ACCEPTED(3, "Accepted"),
+    WRONG_ANSWER(4, "Wrong Answer"),
+    TIME_LIMIT_EXCEEDED(5, "Time Limit Exceeded"),
+    COMPILATION_ERROR(6, "Compilation Error"),
+    RUNTIME_ERROR(11, "Runtime Error (NZEC)"),
+    INTERNAL_ERROR(13, "Internal Error");
+
+    public static final Status IN_QUEUE = new Status(1, "In Queue");
+    public static final Status PROCESSING = new Status(2, "Processing");
+
+    private final int id;
+    private final String description;
+
+    public Status toStatus() {
+        return new Status(id, description);
+    }
+}
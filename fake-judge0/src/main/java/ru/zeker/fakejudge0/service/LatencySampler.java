@@ -0,0 +1,73 @@
+package ru.zeker.fakejudge0.service;
+
+import org.springframework.stereotype.Component;
+import ru.zeker.fakejudge0.config.FakeJudge0Properties;
+import ru.zeker.fakejudge0.domain.model.enums.Verdict;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Случайные величины имитации: задержки, отказы и статусы.
+ * С заданным seed последовательность выборок повторяется от прогона к прогону
+ */
+@Component
+public class LatencySampler {
+
+    // Квантиль 0.99 стандартного нормального распределения
+    private static final double Z_99 = 2.3263;
+
+    private final FakeJudge0Properties properties;
+    private final Random random;
+
+    public LatencySampler(FakeJudge0Properties properties) {
+        this.properties = properties;
+        this.random = properties.getSeed() == null ? new Random() : new Random(properties.getSeed());
+    }
+
+    public Duration requestLatency() {
+        return sample(properties.getRequestLatency());
+    }
+
+    public Duration executionLatency(int languageId) {
+        return sample(properties.getLanguageLatency().getOrDefault(languageId, properties.getExecutionLatency()));
+    }
+
+    public boolean injectFailure() {
+        return properties.getErrorRate() > 0 && random.nextDouble() < properties.getErrorRate();
+    }
+
+    public Verdict verdict() {
+        Map<Verdict, Double> weights = properties.getVerdicts();
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        if (total <= 0) {
+            return Verdict.ACCEPTED;
+        }
+        double point = random.nextDouble() * total;
+        for (Map.Entry<Verdict, Double> weight : weights.entrySet()) {
+            point -= weight.getValue();
+            if (point < 0) {
+                return weight.getKey();
+            }
+        }
+        return Verdict.ACCEPTED;
+    }
+
+    Duration sample(FakeJudge0Properties.Latency latency) {
+        double median = latency.getMedian().toNanos();
+        double min = latency.getMin().toNanos();
+        double max = latency.getMax().toNanos();
+        double nanos = switch (latency.getDistribution()) {
+            case FIXED -> median;
+            case UNIFORM -> min + random.nextDouble() * (max - min);
+            case LOG_NORMAL -> {
+                // p99 = median * exp(sigma * z99)
+                double p99 = latency.getP99().toNanos();
+                double sigma = median > 0 && p99 > median ? Math.log(p99 / median) / Z_99 : 0;
+                yield median * Math.exp(sigma * random.nextGaussian());
+            }
+        };
+        return Duration.ofNanos((long) Math.clamp(nanos, min, Math.max(min, max)));
+    }
+}
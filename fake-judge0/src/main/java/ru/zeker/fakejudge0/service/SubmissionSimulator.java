@@ -0,0 +1,171 @@
+package ru.zeker.fakejudge0.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.server.ResponseStatusException;
+import ru.zeker.common.dto.judge0.request.SubmissionRequest;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.common.dto.judge0.response.WorkerStatus;
+import ru.zeker.fakejudge0.config.FakeJudge0Properties;
+import ru.zeker.fakejudge0.domain.model.enums.Verdict;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Очередь и воркеры имитации Judge0.
+ * <p>
+ * Сабмишен ждёт свободного воркера, который «выполняет» его за время из заданного распределения
+ * и выдаёт случайный статус по весам. Код не запускается: у Accepted stdout равен expected_output,
+ * а без него - stdin, поэтому для Accepted в sandbox-service тесты задачи должны выводить свой ввод
+ */
+@Slf4j
+@Service
+public class SubmissionSimulator {
+
+    private static final String QUEUE_NAME = "default";
+
+    private final FakeJudge0Properties properties;
+    private final LatencySampler sampler;
+    private final RestClient restClient;
+    private final ThreadPoolExecutor workers;
+    private final Cache<String, SubmissionResponse> submissions;
+    private final AtomicInteger working = new AtomicInteger();
+
+    public SubmissionSimulator(FakeJudge0Properties properties, LatencySampler sampler, RestClient.Builder restClientBuilder) {
+        this.properties = properties;
+        this.sampler = sampler;
+        this.restClient = restClientBuilder.build();
+        this.workers = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(), 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), Thread.ofPlatform().name("fake-judge0-worker-", 0).factory());
+        this.submissions = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getRetention())
+                .build();
+    }
+
+    /**
+     * Ставит сабмишен в очередь
+     *
+     * @return токен и future с результатом, который завершается, когда воркер закончит сабмишен
+     * @throws ResponseStatusException 503, если очередь заполнена
+     */
+    public Submission submit(SubmissionRequest request, boolean base64Encoded) {
+        if (workers.getQueue().size() >= properties.getMaxQueueSize()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "queue is full");
+        }
+        String token = UUID.randomUUID().toString();
+        submissions.put(token, SubmissionResponse.builder().token(token).status(Verdict.IN_QUEUE).build());
+
+        CompletableFuture<SubmissionResponse> result = new CompletableFuture<>();
+        workers.execute(() -> {
+            working.incrementAndGet();
+            try {
+                result.complete(run(token, request, base64Encoded));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.cancel(false);
+            } finally {
+                working.decrementAndGet();
+            }
+        });
+        return new Submission(token, result);
+    }
+
+    public SubmissionResponse get(String token) {
+        return submissions.getIfPresent(token);
+    }
+
+    public List<WorkerStatus> workers() {
+        int busy = working.get();
+        return List.of(WorkerStatus.builder()
+                .queue(QUEUE_NAME)
+                .size(workers.getQueue().size())
+                .available(properties.getWorkers())
+                .idle(properties.getWorkers() - busy)
+                .working(busy)
+                .paused(0)
+                .failed(0)
+                .build());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private SubmissionResponse run(String token, SubmissionRequest request, boolean base64Encoded) throws InterruptedException {
+        submissions.put(token, SubmissionResponse.builder().token(token).status(Verdict.PROCESSING).build());
+
+        Verdict verdict = sampler.verdict();
+        Duration elapsed = sampler.executionLatency(request.getLanguageId());
+        if (verdict == Verdict.TIME_LIMIT_EXCEEDED && request.getWallTimeLimit() != null) {
+            elapsed = Duration.ofMillis((long) (request.getWallTimeLimit() * 1000));
+        }
+        Thread.sleep(elapsed);
+
+        SubmissionResponse response = result(token, request, verdict, elapsed, base64Encoded);
+        submissions.put(token, response);
+        if (request.getCallbackUrl() != null) {
+            callback(request.getCallbackUrl(), response);
+        }
+        return response;
+    }
+
+    private SubmissionResponse result(String token, SubmissionRequest request, Verdict verdict,
+                                      Duration elapsed, boolean base64Encoded) {
+        SubmissionResponse.SubmissionResponseBuilder response = SubmissionResponse.builder()
+                .token(token)
+                .time(elapsed.toNanos() / 1e9f)
+                .memory(properties.getMemoryKb());
+        String echo = request.getExpectedOutput() != null ? request.getExpectedOutput() : request.getStdin();
+        return switch (verdict) {
+            case ACCEPTED -> response.status(verdict.toStatus()).stdout(echo).build();
+            // Без expected_output Judge0 не сравнивает вывод и отвечает Accepted, ошибку найдёт sandbox-service
+            case WRONG_ANSWER -> response
+                    .status(request.getExpectedOutput() != null ? verdict.toStatus() : Verdict.ACCEPTED.toStatus())
+                    .stdout(text("wrong answer\n", base64Encoded))
+                    .build();
+            case TIME_LIMIT_EXCEEDED -> response.status(verdict.toStatus()).build();
+            case COMPILATION_ERROR -> response.status(verdict.toStatus())
+                    .compileOutput(text("main.c:1: error: simulated compilation error\n", base64Encoded))
+                    .time(null)
+                    .memory(null)
+                    .build();
+            case RUNTIME_ERROR -> response.status(verdict.toStatus())
+                    .stderr(text("simulated runtime error\n", base64Encoded))
+                    .message(text("Exited with error status 1", base64Encoded))
+                    .build();
+            case INTERNAL_ERROR -> response.status(verdict.toStatus())
+                    .message(text("simulated internal error", base64Encoded))
+                    .build();
+        };
+    }
+
+    private void callback(String url, SubmissionResponse response) {
+        try {
+            restClient.put().uri(url).body(response).retrieve().toBodilessEntity();
+        } catch (Exception e) {
+            log.warn("Callback to {} failed for token {}: {}", url, response.getToken(), e.getMessage());
+        }
+    }
+
+    private static String text(String value, boolean base64Encoded) {
+        return base64Encoded ? Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8)) : value;
+    }
+
+    public record Submission(String token, CompletableFuture<SubmissionResponse> result) {
+    }
+}
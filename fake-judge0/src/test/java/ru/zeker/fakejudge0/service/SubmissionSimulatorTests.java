@@ -0,0 +1,81 @@
+package ru.zeker.fakejudge0.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+import ru.zeker.common.dto.judge0.request.SubmissionRequest;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.fakejudge0.config.FakeJudge0Properties;
+import ru.zeker.fakejudge0.domain.model.enums.LatencyDistribution;
+import ru.zeker.fakejudge0.domain.model.enums.Verdict;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubmissionSimulatorTests {
+
+    private final FakeJudge0Properties properties = new FakeJudge0Properties();
+    private SubmissionSimulator simulator;
+
+    @AfterEach
+    void tearDown() {
+        if (simulator != null) {
+            simulator.shutdown();
+        }
+    }
+
+    @Test
+    void acceptedEchoesStdinAndKeepsResultForPolling() {
+        simulator = simulator();
+        SubmissionRequest request = SubmissionRequest.builder().languageId(71).stdin("MSAy").build();
+
+        SubmissionSimulator.Submission submission = simulator.submit(request, true);
+        SubmissionResponse response = submission.result().join();
+
+        assertEquals(Verdict.ACCEPTED.getId(), response.getStatus().getId());
+        assertEquals("MSAy", response.getStdout());
+        assertEquals(response, simulator.get(submission.token()));
+    }
+
+    @Test
+    void wrongAnswerWithoutExpectedOutputIsReportedAsAccepted() {
+        properties.setVerdicts(Map.of(Verdict.WRONG_ANSWER, 1.0));
+        simulator = simulator();
+        SubmissionRequest request = SubmissionRequest.builder().languageId(71).stdin("1 2").build();
+
+        SubmissionResponse response = simulator.submit(request, false).result().join();
+
+        assertEquals(Verdict.ACCEPTED.getId(), response.getStatus().getId());
+        assertNotEquals("1 2", response.getStdout());
+    }
+
+    @Test
+    void logNormalLatencyMatchesConfiguredMedianAndP99() {
+        properties.setSeed(42L);
+        FakeJudge0Properties.Latency latency = new FakeJudge0Properties.Latency();
+        latency.setDistribution(LatencyDistribution.LOG_NORMAL);
+        latency.setMedian(Duration.ofMillis(100));
+        latency.setP99(Duration.ofSeconds(1));
+        LatencySampler sampler = new LatencySampler(properties);
+
+        long[] samples = new long[100_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = sampler.sample(latency).toMillis();
+        }
+        Arrays.sort(samples);
+
+        assertTrue(Math.abs(samples[samples.length / 2] - 100) <= 5, "median " + samples[samples.length / 2]);
+        long p99 = samples[(int) (samples.length * 0.99)];
+        assertTrue(Math.abs(p99 - 1000) <= 100, "p99 " + p99);
+    }
+
+    private SubmissionSimulator simulator() {
+        properties.setWorkers(2);
+        return new SubmissionSimulator(properties, new LatencySampler(properties), RestClient.builder());
+    }
+}
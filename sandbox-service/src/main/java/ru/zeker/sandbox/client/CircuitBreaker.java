@@ -0,0 +1,123 @@
+package ru.zeker.sandbox.client;
+
+import ru.zeker.sandbox.config.Judge0BalancerProperties;
+
+/**
+ * Circuit breaker узла Judge0 по доле ошибок в скользящем окне последних вызовов.
+ * <p>
+ * CLOSED - вызовы идут, OPEN - вызовы сразу отклоняются до истечения openDuration,
+ * HALF_OPEN - пропускается halfOpenCalls пробных вызовов: все успешны - CLOSED, любая ошибка - снова OPEN
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final Judge0BalancerProperties.CircuitBreaker properties;
+    private final boolean[] failures;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int calls;
+    private int failed;
+    private long openUntil;
+    private int probesLeft;
+    private int probesSucceeded;
+
+    CircuitBreaker(Judge0BalancerProperties.CircuitBreaker properties) {
+        this.properties = properties;
+        this.failures = new boolean[Math.max(1, properties.getWindowSize())];
+    }
+
+    /**
+     * Можно ли сейчас отправить вызов, без резервирования пробного вызова
+     */
+    synchronized boolean isCallPermitted(long now) {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> now >= openUntil;
+            case HALF_OPEN -> probesLeft > 0;
+        };
+    }
+
+    /**
+     * Резервирует вызов; в HALF_OPEN расходует один пробный вызов
+     */
+    synchronized boolean tryAcquire(long now) {
+        if (state == State.OPEN && now >= openUntil) {
+            state = State.HALF_OPEN;
+            probesLeft = properties.getHalfOpenCalls();
+            probesSucceeded = 0;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> probesLeft-- > 0;
+        };
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= properties.getHalfOpenCalls()) {
+                close();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure(long now) {
+        if (state == State.HALF_OPEN) {
+            open(now);
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && calls >= properties.getMinimumCalls()
+                && (double) failed / calls >= properties.getFailureRateThreshold()) {
+            open(now);
+        }
+    }
+
+    /**
+     * Вызов не дал ни успеха, ни ошибки узла (например, 4xx): пробный вызов возвращается
+     */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            probesLeft++;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (calls == failures.length) {
+            if (failures[position]) {
+                failed--;
+            }
+        } else {
+            calls++;
+        }
+        failures[position] = failure;
+        if (failure) {
+            failed++;
+        }
+        position = (position + 1) % failures.length;
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openUntil = now + properties.getOpenDuration().toMillis();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        position = 0;
+        calls = 0;
+        failed = 0;
+    }
+}
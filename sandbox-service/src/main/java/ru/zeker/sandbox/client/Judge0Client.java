@@ -1,26 +1,28 @@
 package ru.zeker.sandbox.client;
 
-import feign.FeignException;
 import jakarta.validation.Valid;
-import org.springframework.cloud.openfeign.FeignClient;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
+import ru.zeker.common.dto.judge0.request.BatchSubmissionRequest;
 import ru.zeker.common.dto.judge0.request.SubmissionRequest;
+import ru.zeker.common.dto.judge0.response.BatchSubmissionResponse;
 import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.common.dto.judge0.response.SubmissionToken;
+import ru.zeker.common.dto.judge0.response.WorkerStatus;
 
-@FeignClient(name = "judge0", url = "${judge0.url:https://judge0-ce.p.rapidapi.com}")
+import java.util.List;
+
+/**
+ * HTTP API одного экземпляра Judge0.
+ * Клиенты создаются на каждый адрес из judge0.balancer.endpoints, см. Judge0EndpointPool.
+ * Повторы выполняет пул в рамках бюджета повторов, сам клиент запросы не повторяет
+ */
 public interface Judge0Client {
 
 
-    @Retryable(
-            retryFor = {FeignException.class},
-            maxAttempts = 3,
-            backoff = @Backoff(delay = 1000, multiplier = 2)
-    )
     @PostMapping(value = "/submissions")
     SubmissionResponse submitCode(
             @RequestBody @Valid SubmissionRequest request,
@@ -30,14 +32,26 @@ public interface Judge0Client {
             @RequestHeader(value = "x-rapidapi-host") String host);
 
 
-    @Retryable(
-            retryFor = {FeignException.class},
-            maxAttempts = 3,
-            backoff = @Backoff(delay = 1000, multiplier = 2)
-    )
     @PostMapping(value = "/submissions")
     SubmissionResponse submitCode(
             @RequestBody @Valid SubmissionRequest request,
             @RequestParam("base64_encoded") boolean base64Encoded,
             @RequestParam("wait") boolean wait);
-}
\ No newline at end of file
+
+
+    @PostMapping(value = "/submissions/batch")
+    List<SubmissionToken> submitBatch(
+            @RequestBody @Valid BatchSubmissionRequest request,
+            @RequestParam("base64_encoded") boolean base64Encoded);
+
+
+    @GetMapping(value = "/submissions/batch")
+    BatchSubmissionResponse getSubmissions(
+            @RequestParam("tokens") String tokens,
+            @RequestParam("base64_encoded") boolean base64Encoded,
+            @RequestParam("fields") String fields);
+
+
+    @GetMapping(value = "/workers")
+    List<WorkerStatus> getWorkers();
+}
@@ -0,0 +1,219 @@
+package ru.zeker.sandbox.client;
+
+import feign.FeignException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import ru.zeker.sandbox.config.Judge0BalancerProperties;
+import ru.zeker.sandbox.exception.Judge0UnavailableException;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Экземпляр Judge0 со своим клиентом, счётчиком незавершённых сабмишенов, состоянием здоровья
+ * и circuit breaker'ом
+ */
+@Slf4j
+public class Judge0Endpoint {
+
+    private static final double MIN_WEIGHT = 0.1;
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    @Getter
+    private final String url;
+    private final Judge0Client client;
+    private final Judge0BalancerProperties properties;
+    private final CircuitBreaker circuitBreaker;
+    private final Map<Judge0Operation, Timer> latency = new EnumMap<>(Judge0Operation.class);
+
+    // Сабмишены, отправленные на узел и ещё не получившие результат
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    @Getter
+    private volatile int queueSize;
+    private volatile boolean ejected;
+    private volatile long ejectedUntil;
+    private volatile long admittedAt;
+    private int ejections;
+
+    public Judge0Endpoint(String url, Judge0Client client, MeterRegistry meterRegistry, Judge0BalancerProperties properties) {
+        this.url = url;
+        this.client = client;
+        this.properties = properties;
+        this.circuitBreaker = new CircuitBreaker(properties.getCircuitBreaker());
+        for (Judge0Operation operation : Judge0Operation.values()) {
+            latency.put(operation, Timer.builder("judge0.endpoint.latency")
+                    .description("Judge0 API call latency")
+                    .tag("endpoint", url)
+                    .tag("operation", operation.tag())
+                    .publishPercentiles(0.5, HEDGE_PERCENTILE, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Вызывает API узла, замеряя задержку и учитывая ошибки для circuit breaker'а и исключения узла.
+     * При разомкнутом breaker'е сразу бросает {@link Judge0UnavailableException}.
+     * Health-check'и идут мимо breaker'а: по ним узел возвращается после исключения
+     */
+    public <T> T call(Judge0Operation operation, Function<Judge0Client, T> request) {
+        boolean guarded = operation != Judge0Operation.WORKERS;
+        if (guarded && !circuitBreaker.tryAcquire(System.currentTimeMillis())) {
+            throw new Judge0UnavailableException("Circuit breaker for Judge0 endpoint " + url + " is open");
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            T response = request.apply(client);
+            consecutiveFailures.set(0);
+            if (guarded) {
+                circuitBreaker.onSuccess();
+            }
+            return response;
+        } catch (RuntimeException e) {
+            if (isNodeFailure(e)) {
+                recordFailure(guarded);
+            } else if (guarded) {
+                circuitBreaker.onIgnored();
+            }
+            throw e;
+        } finally {
+            latency.get(operation).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void acquire(int submissions) {
+        outstanding.addAndGet(submissions);
+    }
+
+    public void release(int submissions) {
+        outstanding.addAndGet(-submissions);
+    }
+
+    public int outstanding() {
+        return outstanding.get();
+    }
+
+    public boolean isHealthy() {
+        return !ejected;
+    }
+
+    public boolean isCircuitClosed() {
+        return circuitBreaker.state() == CircuitBreaker.State.CLOSED;
+    }
+
+    boolean isCallPermitted(long now) {
+        return circuitBreaker.isCallPermitted(now);
+    }
+
+    /**
+     * Через сколько без ответа отправлять хедж-запрос: p95 задержки операции на этом узле.
+     * Пока замеров мало, хеджирование не применяется
+     */
+    Duration hedgeDelay(Judge0Operation operation) {
+        Timer timer = latency.get(operation);
+        if (timer.count() < properties.getHedging().getMinSamples()) {
+            return null;
+        }
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == HEDGE_PERCENTILE) {
+                long p95 = (long) percentile.value(TimeUnit.MILLISECONDS);
+                return Duration.ofMillis(Math.max(p95, properties.getHedging().getMinDelay().toMillis()));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Нагрузка с поправкой на плавный старт: недавно вернувшийся узел выглядит загруженнее
+     */
+    double load(long now) {
+        long slowStartMs = properties.getSlowStart().toMillis();
+        double weight = 1.0;
+        long sinceAdmitted = now - admittedAt;
+        if (admittedAt > 0 && slowStartMs > 0 && sinceAdmitted < slowStartMs) {
+            weight = Math.max(MIN_WEIGHT, (double) sinceAdmitted / slowStartMs);
+        }
+        return (outstanding.get() + 1) / weight;
+    }
+
+    boolean canBeAdmitted(long now) {
+        return ejected && now >= ejectedUntil;
+    }
+
+    synchronized void admit(long now) {
+        ejected = false;
+        admittedAt = now;
+        consecutiveFailures.set(0);
+    }
+
+    /**
+     * Узел отработал полный плавный старт без исключений: счётчик повторных исключений сбрасывается
+     */
+    synchronized void markStable(long now) {
+        if (!ejected && ejections > 0 && now - admittedAt >= properties.getSlowStart().toMillis()) {
+            ejections = 0;
+        }
+    }
+
+    void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    // Ответ 4xx - ошибка запроса, а не узла
+    /**
+     * Запрос не дошёл до узла: узел отсечён или соединение не установлено. Только такую отправку
+     * сабмишена можно повторить - после таймаута ответа сабмишен мог быть уже создан
+     */
+    static boolean isNotSent(Throwable e) {
+        if (e instanceof Judge0UnavailableException) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof NoRouteToHostException
+                    || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isNodeFailure(Throwable e) {
+        return e instanceof RetryableException
+                || (e instanceof FeignException feignException && (feignException.status() >= 500 || feignException.status() < 0));
+    }
+
+    private void recordFailure(boolean guarded) {
+        long now = System.currentTimeMillis();
+        if (guarded) {
+            circuitBreaker.onFailure(now);
+        }
+        if (consecutiveFailures.incrementAndGet() >= properties.getFailureThreshold()) {
+            eject(now);
+        }
+    }
+
+    private synchronized void eject(long now) {
+        if (ejected) {
+            return;
+        }
+        ejections++;
+        ejected = true;
+        ejectedUntil = now + Math.min(properties.getEjectionTime().toMillis() * ejections,
+                properties.getMaxEjectionTime().toMillis());
+        log.warn("Judge0 endpoint {} ejected for {} ms after {} consecutive failures",
+                url, ejectedUntil - now, consecutiveFailures.get());
+    }
+}
@@ -0,0 +1,298 @@
+package ru.zeker.sandbox.client;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.openfeign.FeignClientBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.zeker.common.dto.judge0.response.WorkerStatus;
+import ru.zeker.sandbox.config.Judge0BalancerProperties;
+import ru.zeker.sandbox.exception.Judge0UnavailableException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Набор экземпляров Judge0 с балансировкой по наименьшему числу незавершённых сабмишенов.
+ * <p>
+ * Узел исключается после failureThreshold ошибок подряд (в запросах или health-check'ах GET /workers)
+ * и возвращается первым успешным health-check'ом после окончания исключения, затем
+ * плавно набирает долю нагрузки в течение slowStart. Если исключены все узлы,
+ * нагрузка распределяется по всем, чтобы не останавливать проверку полностью.
+ * <p>
+ * Узлы с разомкнутым circuit breaker'ом не выбираются вовсе; если таких не осталось,
+ * запрос сразу завершается {@link Judge0UnavailableException}. Идемпотентные запросы хеджируются
+ * после p95 задержки узла и повторяются на другом узле в рамках общего бюджета повторов.
+ * Отправка сабмишена не хеджируется и повторяется, только если запрос не дошёл до узла:
+ * сабмишен, ответ на который потерян, уже выполняется, а его токен неизвестен
+ */
+@Slf4j
+@Component
+public class Judge0EndpointPool {
+
+    private final List<Judge0Endpoint> endpoints = new ArrayList<>();
+    private final Judge0BalancerProperties properties;
+    private final RetryBudget retryBudget;
+    private final ExecutorService virtualThead;
+
+    public Judge0EndpointPool(ApplicationContext applicationContext,
+                              Judge0BalancerProperties properties,
+                              MeterRegistry meterRegistry,
+                              ExecutorService virtualThead,
+                              @Value("${judge0.url:https://judge0-ce.p.rapidapi.com}") String defaultUrl) {
+        this.properties = properties;
+        this.retryBudget = new RetryBudget(properties.getRetry());
+        this.virtualThead = virtualThead;
+
+        List<String> urls = properties.getEndpoints().stream()
+                .filter(StringUtils::isNotBlank)
+                .toList();
+        if (urls.isEmpty()) {
+            urls = List.of(defaultUrl);
+        }
+        FeignClientBuilder feignClientBuilder = new FeignClientBuilder(applicationContext);
+        for (int i = 0; i < urls.size(); i++) {
+            String url = urls.get(i);
+            Judge0Client client = feignClientBuilder.forType(Judge0Client.class, "judge0")
+                    .contextId("judge0-" + i)
+                    .url(url)
+                    .build();
+            Judge0Endpoint endpoint = new Judge0Endpoint(url, client, meterRegistry, properties);
+
+            Gauge.builder("judge0.endpoint.outstanding", endpoint, Judge0Endpoint::outstanding)
+                    .description("Submissions sent to the endpoint and not yet finished")
+                    .tag("endpoint", url)
+                    .register(meterRegistry);
+            Gauge.builder("judge0.endpoint.queue.size", endpoint, Judge0Endpoint::getQueueSize)
+                    .description("Judge0 worker queue size reported by GET /workers")
+                    .tag("endpoint", url)
+                    .register(meterRegistry);
+            Gauge.builder("judge0.endpoint.healthy", endpoint, e -> e.isHealthy() ? 1 : 0)
+                    .tag("endpoint", url)
+                    .register(meterRegistry);
+            Gauge.builder("judge0.endpoint.circuit.closed", endpoint, e -> e.isCircuitClosed() ? 1 : 0)
+                    .tag("endpoint", url)
+                    .register(meterRegistry);
+            endpoints.add(endpoint);
+        }
+        Gauge.builder("judge0.retry.budget", retryBudget, RetryBudget::balance)
+                .description("Retries and hedged requests currently allowed")
+                .register(meterRegistry);
+        log.info("Judge0 endpoints: {}", urls);
+    }
+
+    /**
+     * Выбирает наименее загруженный узел и резервирует на нём место под сабмишены.
+     * Место освобождается через {@link Judge0Endpoint#release(int)}
+     */
+    public Judge0Endpoint acquire(int submissions) {
+        return acquire(submissions, Set.of());
+    }
+
+    /**
+     * Отправляет запрос на наименее загруженный узел с хеджированием и повторами.
+     * Место под сабмишены остаётся зарезервированным на узле, вернувшем ответ
+     *
+     * @param submissions сколько сабмишенов создаёт запрос
+     * @return ответ и узел, который его дал
+     */
+    public <T> Routed<T> execute(Judge0Operation operation, int submissions, Function<Judge0Client, T> request) {
+        retryBudget.deposit();
+        Set<Judge0Endpoint> failed = new HashSet<>();
+        int maxAttempts = Math.max(1, properties.getRetry().getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return attempt(operation, submissions, request, failed);
+            } catch (RuntimeException e) {
+                boolean retryable = operation.isIdempotent()
+                        ? e instanceof Judge0UnavailableException || Judge0Endpoint.isNodeFailure(e)
+                        : Judge0Endpoint.isNotSent(e);
+                if (!retryable || attempt >= maxAttempts) {
+                    throw e;
+                }
+                if (!retryBudget.tryWithdraw()) {
+                    log.warn("Judge0 retry budget exhausted, failing {} request", operation.tag());
+                    throw e;
+                }
+                log.debug("Retrying Judge0 {} request (attempt {}): {}", operation.tag(), attempt + 1, e.getMessage());
+            }
+        }
+    }
+
+    public List<Judge0Endpoint> endpoints() {
+        return endpoints;
+    }
+
+    @Scheduled(fixedDelayString = "${judge0.balancer.health-check-interval-ms:5000}")
+    public void healthCheck() {
+        // Узлы проверяются параллельно, чтобы зависший узел не задерживал проверку остальных
+        endpoints.forEach(endpoint -> virtualThead.execute(() -> check(endpoint)));
+    }
+
+    private <T> Routed<T> attempt(Judge0Operation operation, int submissions,
+                                  Function<Judge0Client, T> request, Set<Judge0Endpoint> failed) {
+        Judge0Endpoint primary = acquire(submissions, failed);
+        CompletableFuture<T> primaryCall = CompletableFuture.supplyAsync(() -> primary.call(operation, request), virtualThead);
+
+        Duration hedgeDelay = properties.getHedging().isEnabled() && operation.isIdempotent()
+                ? primary.hedgeDelay(operation)
+                : null;
+        if (hedgeDelay != null) {
+            try {
+                T response = primaryCall.get(hedgeDelay.toMillis(), TimeUnit.MILLISECONDS);
+                return new Routed<>(primary, response);
+            } catch (TimeoutException e) {
+                Judge0Endpoint secondary = hedgeTarget(submissions, primary, failed);
+                if (secondary != null) {
+                    log.debug("Judge0 {} on {} exceeded p95 {} ms, hedging to {}",
+                            operation.tag(), primary.getUrl(), hedgeDelay.toMillis(), secondary.getUrl());
+                    CompletableFuture<T> secondaryCall =
+                            CompletableFuture.supplyAsync(() -> secondary.call(operation, request), virtualThead);
+                    return firstSuccessful(submissions, primary, primaryCall, secondary, secondaryCall, failed);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // Ошибка первичного вызова обрабатывается ниже тем же путём, что и без хеджирования
+            }
+        }
+
+        try {
+            return new Routed<>(primary, primaryCall.join());
+        } catch (CompletionException e) {
+            primary.release(submissions);
+            failed.add(primary);
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Второй узел для хедж-запроса; хедж расходует бюджет повторов наравне с повтором
+     */
+    private Judge0Endpoint hedgeTarget(int submissions, Judge0Endpoint primary, Set<Judge0Endpoint> failed) {
+        Set<Judge0Endpoint> excluded = new HashSet<>(failed);
+        excluded.add(primary);
+        long now = System.currentTimeMillis();
+        boolean hasCandidate = endpoints.stream()
+                .anyMatch(endpoint -> !excluded.contains(endpoint) && endpoint.isHealthy() && endpoint.isCallPermitted(now));
+        if (!hasCandidate || !retryBudget.tryWithdraw()) {
+            return null;
+        }
+        return acquire(submissions, excluded);
+    }
+
+    /**
+     * Ответ того из двух вызовов, который первым завершился успешно; проигравший узел освобождает место.
+     * Хеджируются только идемпотентные запросы, поэтому проигравший вызов ничего не создаёт на узле
+     */
+    private <T> Routed<T> firstSuccessful(int submissions,
+                                          Judge0Endpoint primary, CompletableFuture<T> primaryCall,
+                                          Judge0Endpoint secondary, CompletableFuture<T> secondaryCall,
+                                          Set<Judge0Endpoint> failed) {
+        CompletableFuture<Routed<T>> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        List.of(new Routed<>(primary, primaryCall), new Routed<>(secondary, secondaryCall)).forEach(call ->
+                call.response().whenComplete((response, error) -> {
+                    if (error == null && winner.complete(new Routed<>(call.endpoint(), response))) {
+                        return;
+                    }
+                    call.endpoint().release(submissions);
+                    if (error != null) {
+                        synchronized (failed) {
+                            failed.add(call.endpoint());
+                        }
+                        if (failures.incrementAndGet() == 2) {
+                            winner.completeExceptionally(error);
+                        }
+                    }
+                }));
+        try {
+            return winner.join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private Judge0Endpoint acquire(int submissions, Set<Judge0Endpoint> excluded) {
+        long now = System.currentTimeMillis();
+        List<Judge0Endpoint> permitted = endpoints.stream()
+                .filter(endpoint -> !excluded.contains(endpoint) && endpoint.isCallPermitted(now))
+                .toList();
+        if (permitted.isEmpty()) {
+            throw new Judge0UnavailableException("No Judge0 endpoint is accepting requests");
+        }
+        List<Judge0Endpoint> candidates = permitted.stream()
+                .filter(Judge0Endpoint::isHealthy)
+                .toList();
+        if (candidates.isEmpty()) {
+            candidates = permitted;
+        }
+
+        // Случайная точка старта, чтобы при равной нагрузке узлы выбирались поровну
+        int start = ThreadLocalRandom.current().nextInt(candidates.size());
+        Judge0Endpoint best = null;
+        double bestLoad = Double.MAX_VALUE;
+        for (int i = 0; i < candidates.size(); i++) {
+            Judge0Endpoint candidate = candidates.get((start + i) % candidates.size());
+            double load = candidate.load(now);
+            if (load < bestLoad) {
+                best = candidate;
+                bestLoad = load;
+            }
+        }
+        Objects.requireNonNull(best).acquire(submissions);
+        return best;
+    }
+
+    private RuntimeException unwrap(CompletionException e) {
+        return e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+
+    private void check(Judge0Endpoint endpoint) {
+        long now = System.currentTimeMillis();
+        try {
+            List<WorkerStatus> workers = endpoint.call(Judge0Operation.WORKERS, Judge0Client::getWorkers);
+            endpoint.setQueueSize(workers.stream()
+                    .mapToInt(worker -> Objects.requireNonNullElse(worker.getSize(), 0))
+                    .sum());
+        } catch (FeignException e) {
+            // 4xx: узел отвечает, но /workers закрыт (например, за API-шлюзом)
+            if (e.status() < 400 || e.status() >= 500) {
+                log.debug("Judge0 endpoint {} health check failed: {}", endpoint.getUrl(), e.getMessage());
+                return;
+            }
+        } catch (Exception e) {
+            log.debug("Judge0 endpoint {} health check failed: {}", endpoint.getUrl(), e.getMessage());
+            return;
+        }
+
+        if (endpoint.canBeAdmitted(now)) {
+            log.info("Judge0 endpoint {} is healthy again, admitting with slow start", endpoint.getUrl());
+            endpoint.admit(now);
+        }
+        endpoint.markStable(now);
+    }
+
+    /**
+     * Ответ узла Judge0 вместе с узлом, который его дал
+     */
+    public record Routed<T>(Judge0Endpoint endpoint, T response) {
+    }
+}
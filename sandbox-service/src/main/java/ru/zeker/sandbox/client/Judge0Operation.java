@@ -0,0 +1,24 @@
+package ru.zeker.sandbox.client;
+
+/**
+ * Вид запроса к Judge0: задержки сильно различаются, поэтому учитываются раздельно
+ */
+public enum Judge0Operation {
+    SUBMIT,
+    SUBMIT_WAIT,
+    SUBMIT_BATCH,
+    POLL,
+    WORKERS;
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * Можно ли повторить или хеджировать запрос: повтор отправки создаёт на Judge0 второй сабмишен,
+     * который никто не отслеживает
+     */
+    public boolean isIdempotent() {
+        return this == POLL || this == WORKERS;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.zeker.sandbox.client;
+
+import ru.zeker.sandbox.config.Judge0BalancerProperties;
+
+/**
+ * Общий бюджет повторов и хедж-запросов к Judge0.
+ * <p>
+ * Каждый исходный запрос пополняет бюджет на ratio, каждый повтор или хедж расходует единицу.
+ * Вместо фиксированного числа попыток на запрос повторов в сумме не больше доли ratio
+ * от трафика (плюс небольшой минимум в секунду), поэтому при деградации Judge0
+ * повторы не умножают нагрузку на него
+ */
+class RetryBudget {
+
+    private final Judge0BalancerProperties.Retry properties;
+
+    private double balance;
+    private long updatedAt = System.currentTimeMillis();
+
+    RetryBudget(Judge0BalancerProperties.Retry properties) {
+        this.properties = properties;
+        this.balance = properties.getMinPerSecond();
+    }
+
+    synchronized void deposit() {
+        refill();
+        balance = Math.min(properties.getMaxBalance(), balance + properties.getRatio());
+    }
+
+    synchronized boolean tryWithdraw() {
+        refill();
+        if (balance < 1) {
+            return false;
+        }
+        balance--;
+        return true;
+    }
+
+    synchronized double balance() {
+        refill();
+        return balance;
+    }
+
+    private void refill() {
+        long now = System.currentTimeMillis();
+        balance = Math.min(properties.getMaxBalance(), balance + (now - updatedAt) / 1000.0 * properties.getMinPerSecond());
+        updatedAt = now;
+    }
+}
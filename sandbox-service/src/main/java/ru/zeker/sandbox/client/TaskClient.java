@@ -0,0 +1,15 @@
+package ru.zeker.sandbox.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import ru.zeker.common.dto.task.response.TestSuiteResponse;
+
+import java.util.UUID;
+
+@FeignClient(name = "task-service", url = "${task.service.url:http://task-service:8082}")
+public interface TaskClient {
+
+    @GetMapping("/tasks/{taskId}/tests")
+    TestSuiteResponse getTestSuite(@PathVariable("taskId") UUID taskId);
+}
@@ -0,0 +1,87 @@
+package ru.zeker.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import ru.zeker.common.dto.solution.Language;
+import ru.zeker.sandbox.domain.model.enums.ExecutionLane;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "sandbox.admission")
+public class AdmissionProperties {
+    /**
+     * Максимум одновременно выполняемых решений на узле
+     */
+    private int maxInFlight = 256;
+
+    /**
+     * Ниже этой отметки (выполняются + ждут) приостановленный листенер возобновляется
+     */
+    private int lowWaterMark = 192;
+
+    /**
+     * Дополнительные лимиты по языкам, не заданные языки ограничены только maxInFlight
+     */
+    private Map<Language, Integer> maxInFlightPerLanguage = new EnumMap<>(Language.class);
+
+    /**
+     * Максимум одновременно выполняемых решений одного пользователя
+     */
+    private int maxInFlightPerUser = 16;
+
+    /**
+     * Квант deficit round robin: сколько ожидаемого времени выполнения пользователь
+     * получает за каждый свой ход в очереди
+     */
+    private Duration userQuantum = Duration.ofSeconds(2);
+
+    /**
+     * Очереди по стоимости; не заданная очередь не ограничена по доле и имеет вес 1
+     */
+    private Map<ExecutionLane, Lane> lanes = new EnumMap<>(ExecutionLane.class);
+
+    private Cost cost = new Cost();
+
+    @Data
+    public static class Lane {
+        /**
+         * Верхняя граница ожидаемой стоимости решения в этой очереди, у последней очереди не задаётся
+         */
+        private Duration maxCost;
+
+        /**
+         * Сколько ожидающих запусков забирается из очереди за один проход по очередям
+         */
+        private int weight = 1;
+
+        /**
+         * Доля maxInFlight, которую очередь может занять одновременно
+         */
+        private double maxShare = 1.0;
+    }
+
+    @Data
+    public static class Cost {
+        /**
+         * Ожидаемое время одного теста, пока по задаче нет замеров
+         */
+        private Map<Language, Duration> defaultPerTest = new EnumMap<>(Language.class);
+
+        private Duration fallbackPerTest = Duration.ofMillis(300);
+
+        /**
+         * Вес нового замера в скользящем среднем времени теста
+         */
+        private double smoothing = 0.2;
+
+        /**
+         * Сколько задач хранить в истории замеров
+         */
+        private long maxTasks = 10_000;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.zeker.sandbox.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.zeker.sandbox.domain.dto.ExecutionReport;
+
+import java.time.Duration;
+
+@Configuration
+public class ExecutionCacheConfig {
+
+    @Bean
+    public Cache<String, ExecutionReport> executionResultLocalCache(
+            @Value("${sandbox.cache.max-entries:10000}") long maxEntries,
+            @Value("${sandbox.cache.ttl:PT1H}") Duration ttl
+    ) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package ru.zeker.sandbox.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import ru.zeker.common.dto.solution.Language;
+import ru.zeker.sandbox.domain.model.enums.EngineType;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "sandbox.engine")
+public class ExecutionEngineProperties {
+    /**
+     * Движок для языков, не перечисленных в languages
+     */
+    private EngineType defaultEngine = EngineType.JUDGE0;
+
+    /**
+     * Движок по языкам
+     */
+    private Map<Language, EngineType> languages = new EnumMap<>(Language.class);
+
+    private Local local = new Local();
+
+    @Data
+    public static class Local {
+        /**
+         * Максимум одновременно запущенных дочерних процессов
+         */
+        private int poolSize = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Лимит реального времени, по истечении процесс убивается с вердиктом TLE
+         */
+        private Duration timeLimit = Duration.ofSeconds(5);
+
+        /**
+         * Лимит адресного пространства процесса (ulimit -v)
+         */
+        private int memoryLimitMb = 256;
+
+        /**
+         * Сколько stdout/stderr читается в ответ, остальное отбрасывается
+         */
+        private int maxOutputBytes = 1024 * 1024;
+
+        /**
+         * Лимит процессов (ulimit -u), не даёт решению размножаться fork'ами. Считаются все процессы
+         * и потоки пользователя, от имени которого запущен сервис, поэтому лимит берётся с запасом
+         * над потоками самого сервиса; 0 - без лимита
+         */
+        private int maxProcesses = 1024;
+
+        /**
+         * Интерпретаторы по языкам, путь к файлу решения добавляется последним аргументом
+         */
+        private Map<Language, Interpreter> interpreters = new EnumMap<>(Map.of(
+                Language.PYTHON, new Interpreter(List.of("python3", "-I"), "solution.py", true),
+                Language.JS, new Interpreter(List.of("node", "--max-old-space-size=256"), "solution.js", false)
+        ));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Interpreter {
+        private List<String> command;
+
+        private String fileName;
+
+        /**
+         * V8 резервирует адресное пространство заранее, поэтому для node память ограничивается его флагом
+         */
+        private boolean limitAddressSpace = true;
+    }
+}
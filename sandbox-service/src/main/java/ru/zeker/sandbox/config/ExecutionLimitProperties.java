@@ -0,0 +1,63 @@
+package ru.zeker.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Лимиты времени и памяти, отправляемые с каждым запуском. Процессорное время и память всегда
+ * максимальные; лимит реального времени, когда по задаче достаточно принятых решений, - p99 их времени
+ * с множителем и запасом, см. {@link ru.zeker.sandbox.service.RuntimeStatistics}
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "sandbox.limits")
+public class ExecutionLimitProperties {
+
+    /**
+     * Выключено - лимиты не отправляются и действуют настройки Judge0 по умолчанию
+     */
+    private boolean enabled = true;
+
+    /**
+     * Сколько принятых запусков задачи нужно, прежде чем лимиты начнут подстраиваться
+     */
+    private long minSamples = 30;
+
+    private double quantile = 0.99;
+
+    private double timeMultiplier = 3.0;
+
+    private Duration timeHeadroom = Duration.ofMillis(200);
+
+    /**
+     * Нижняя граница адаптивного лимита реального времени на тест
+     */
+    private Duration minWallTime = Duration.ofSeconds(1);
+
+    /**
+     * Лимит процессорного времени на тест
+     */
+    private Duration maxCpuTime = Duration.ofSeconds(5);
+
+    /**
+     * Лимит реального времени относительно процессорного: учитывает запуск интерпретатора и ввод-вывод
+     */
+    private double wallTimeMultiplier = 2.0;
+
+    private int maxMemoryMb = 256;
+
+    /**
+     * Относительная погрешность квантильного скетча
+     */
+    private double relativeAccuracy = 0.02;
+
+    /**
+     * После стольких замеров веса старых замеров уменьшаются вдвое
+     */
+    private long decayAfter = 10_000;
+
+    private long maxTasks = 10_000;
+}
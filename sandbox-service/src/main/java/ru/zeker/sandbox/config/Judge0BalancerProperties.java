@@ -0,0 +1,103 @@
+package ru.zeker.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "judge0.balancer")
+public class Judge0BalancerProperties {
+    /**
+     * Адреса экземпляров Judge0
+     */
+    private List<String> endpoints = new ArrayList<>();
+
+    /**
+     * Подряд идущих ошибок (сеть, 5xx), после которых узел исключается
+     */
+    private int failureThreshold = 3;
+
+    /**
+     * Время исключения узла, растёт с каждым повторным исключением до maxEjectionTime
+     */
+    private Duration ejectionTime = Duration.ofSeconds(10);
+
+    private Duration maxEjectionTime = Duration.ofMinutes(2);
+
+    /**
+     * За это время вернувшийся узел плавно набирает полную долю нагрузки
+     */
+    private Duration slowStart = Duration.ofSeconds(30);
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Hedging hedging = new Hedging();
+
+    private Retry retry = new Retry();
+
+    @Data
+    public static class CircuitBreaker {
+        /**
+         * Сколько последних вызовов узла учитывается
+         */
+        private int windowSize = 20;
+
+        /**
+         * Меньше вызовов в окне - breaker не размыкается
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * Доля ошибок в окне, при которой breaker размыкается
+         */
+        private double failureRateThreshold = 0.5;
+
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        /**
+         * Пробные вызовы после openDuration
+         */
+        private int halfOpenCalls = 3;
+    }
+
+    @Data
+    public static class Hedging {
+        private boolean enabled = true;
+
+        /**
+         * Хедж-запрос на другой узел отправляется, если ответа нет дольше p95 задержки узла,
+         * но не раньше minDelay
+         */
+        private Duration minDelay = Duration.ofMillis(100);
+
+        /**
+         * Сколько замеров нужно узлу, чтобы p95 считался надёжным
+         */
+        private int minSamples = 50;
+    }
+
+    @Data
+    public static class Retry {
+        /**
+         * Доля от исходных запросов, которую могут составить повторы и хедж-запросы
+         */
+        private double ratio = 0.1;
+
+        /**
+         * Повторы в секунду, доступные даже при малом трафике
+         */
+        private double minPerSecond = 1;
+
+        private double maxBalance = 50;
+
+        /**
+         * Верхняя граница попыток на один запрос, включая первую
+         */
+        private int maxAttempts = 3;
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
@@ -20,11 +21,13 @@ import java.util.Map;
 @EnableKafka
 public class KafkaConsumerConfig {
 
+    private static final int SOLUTION_EXEC_CONCURRENCY = 16;
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
     @Bean
-    public ConsumerFactory<String, Object> consumerFactory() {
+    public ConsumerFactory<String, Object> consumerFactory(AdmissionProperties admissionProperties) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "sandbox-service");
@@ -38,7 +41,10 @@ public class KafkaConsumerConfig {
         props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, true);
         props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, SolutionExecRequest.class);
 
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500);
+        // Листенер ставится на паузу только после poll: за один проход всех потребителей
+        // в очередь ожидания попадает не больше maxInFlight решений
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG,
+                Math.max(1, admissionProperties.getMaxInFlight() / SOLUTION_EXEC_CONCURRENCY));
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
 
         return new DefaultKafkaConsumerFactory<>(props);
@@ -50,7 +56,10 @@ public class KafkaConsumerConfig {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory);
-        factory.setConcurrency(16);
+        factory.setConcurrency(SOLUTION_EXEC_CONCURRENCY);
+        // Оффсет коммитится только после публикации результата, результаты приходят не по порядку
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
         return factory;
     }
 
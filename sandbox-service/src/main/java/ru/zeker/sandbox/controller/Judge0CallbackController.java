@@ -0,0 +1,37 @@
+package ru.zeker.sandbox.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.sandbox.service.Judge0SubmissionPoller;
+
+/**
+ * Приём результатов, которые Judge0 отправляет на callback_url сабмишена
+ */
+@Slf4j
+@RestController
+@RequestMapping("/judge0/callbacks")
+@RequiredArgsConstructor
+public class Judge0CallbackController {
+
+    private final Judge0SubmissionPoller submissionPoller;
+
+    @PutMapping("/{solutionId}")
+    public ResponseEntity<Void> acceptResult(
+            @PathVariable("solutionId") String solutionId,
+            @RequestBody SubmissionResponse response
+    ) {
+        if (!submissionPoller.acceptCallback(solutionId, response)) {
+            log.warn("Unexpected Judge0 callback: solutionId={}, token={}", solutionId, response.getToken());
+            return ResponseEntity.notFound().build();
+        }
+        log.debug("Judge0 callback accepted: solutionId={}, token={}", solutionId, response.getToken());
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,8 @@
+package ru.zeker.sandbox.controller;
+
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import ru.zeker.common.controller.GlobalExceptionHandler;
+
+@RestControllerAdvice
+public class SandboxExceptionHandler extends GlobalExceptionHandler {
+}
@@ -0,0 +1,121 @@
+package ru.zeker.sandbox.domain.component;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import ru.zeker.common.dto.solution.Language;
+import ru.zeker.common.dto.task.TestCase;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Обвязки решения для HARNESS-режима: весь набор тестов выполняется одним процессом
+ * вместо отдельного сабмишена (компиляции и старта интерпретатора) на каждый тест.
+ * <p>
+ * Тесты передаются через stdin, разделённые случайной строкой-разделителем,
+ * вывод каждого теста предваряется строкой "&lt;разделитель&gt; OK|ERROR"
+ */
+@Component
+public class TestHarness {
+
+    private static final String SOURCE_PLACEHOLDER = "{{SOURCE}}";
+    private static final String STATUS_OK = "OK";
+
+    private final Map<Language, String> templates = new EnumMap<>(Language.class);
+
+    public TestHarness() {
+        templates.put(Language.PYTHON, load("harness/python.py"));
+        templates.put(Language.JS, load("harness/js.js"));
+    }
+
+    public boolean supports(Language language) {
+        return templates.containsKey(language);
+    }
+
+    /**
+     * Новый разделитель на каждый запуск, чтобы решение не могло его подделать
+     */
+    public String newBoundary() {
+        return "@@HARNESS-" + UUID.randomUUID() + "@@";
+    }
+
+    /**
+     * Встраивает код решения в обвязку языка
+     */
+    public String wrap(Language language, String code) {
+        String encoded = Base64.getEncoder().encodeToString(code.getBytes(StandardCharsets.UTF_8));
+        return templates.get(language).replace(SOURCE_PLACEHOLDER, encoded);
+    }
+
+    /**
+     * Собирает stdin обвязки: разделитель, затем вход каждого теста, завершённый разделителем
+     */
+    public String packInput(String boundary, List<TestCase> tests) {
+        StringBuilder stdin = new StringBuilder(boundary).append('\n');
+        for (TestCase test : tests) {
+            String input = test.getInput();
+            stdin.append(input);
+            if (!input.endsWith("\n")) {
+                stdin.append('\n');
+            }
+            stdin.append(boundary).append('\n');
+        }
+        return stdin.toString();
+    }
+
+    /**
+     * Разбирает stdout обвязки на результаты тестов в порядке запуска.
+     * Если процесс оборвался, результатов будет меньше, чем тестов
+     */
+    public List<TestOutput> unpack(String boundary, String stdout) {
+        List<TestOutput> outputs = new ArrayList<>();
+        if (stdout == null) {
+            return outputs;
+        }
+
+        String header = boundary + " ";
+        Boolean ok = null;
+        StringBuilder output = new StringBuilder();
+        // Вывод каждого теста завершён переводом строки: после последнего нет ещё одной пустой строки
+        String body = stdout.endsWith("\n") ? stdout.substring(0, stdout.length() - 1) : stdout;
+        for (String line : body.split("\n", -1)) {
+            if (line.startsWith(header)) {
+                if (ok != null) {
+                    outputs.add(new TestOutput(ok, output.toString()));
+                }
+                ok = STATUS_OK.equals(line.substring(header.length()));
+                output.setLength(0);
+            } else if (ok != null) {
+                output.append(line).append('\n');
+            }
+        }
+        if (ok != null) {
+            outputs.add(new TestOutput(ok, output.toString()));
+        }
+        return outputs;
+    }
+
+    private static String load(String path) {
+        try {
+            return new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load test harness " + path, e);
+        }
+    }
+
+    /**
+     * Вывод одного теста
+     *
+     * @param ok     false, если решение упало с исключением или ненулевым кодом выхода
+     * @param output stdout решения на этом тесте
+     */
+    public record TestOutput(boolean ok, String output) {
+    }
+}
@@ -0,0 +1,24 @@
+package ru.zeker.sandbox.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Лимиты одного запуска программы
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ExecutionLimits {
+
+    private Duration cpuTime;
+
+    private Duration wallTime;
+
+    private int memoryKb;
+}
@@ -0,0 +1,29 @@
+package ru.zeker.sandbox.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.common.dto.kafka.solution.TestResult;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ExecutionReport {
+
+    /**
+     * Итоговый вердикт по всем выполненным тестам
+     */
+    private SubmissionResponse response;
+
+    private List<TestResult> testResults;
+
+    /**
+     * Число тестов в прогоне: testResults может содержать не все
+     */
+    private int testCount;
+}
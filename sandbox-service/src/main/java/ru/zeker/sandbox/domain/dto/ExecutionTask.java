@@ -0,0 +1,33 @@
+package ru.zeker.sandbox.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.zeker.common.dto.solution.Language;
+
+/**
+ * Один запуск программы на одном stdin, независимо от движка выполнения
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ExecutionTask {
+
+    private String solutionId;
+
+    private Language language;
+
+    /**
+     * Исходный код и stdin; base64 для Judge0 кодируется один раз и переиспользуется между запусками
+     */
+    private Payload sourceCode;
+
+    private Payload stdin;
+
+    /**
+     * Лимиты запуска, null - лимиты движка по умолчанию
+     */
+    private ExecutionLimits limits;
+}
@@ -0,0 +1,50 @@
+package ru.zeker.sandbox.domain.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Текст для запуска (исходный код или stdin) и его base64 для Judge0.
+ * Кодирование выполняется при первом обращении и запоминается, поэтому один экземпляр
+ * можно отдавать во все запуски, которым нужен этот текст
+ */
+public final class Payload {
+
+    private final String text;
+    private volatile String base64;
+
+    private Payload(String text) {
+        this.text = text;
+    }
+
+    public static Payload of(String text) {
+        return new Payload(text);
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public String base64() {
+        String encoded = base64;
+        if (encoded == null) {
+            // Гонка безопасна: оба потока получат одинаковую строку
+            encoded = Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+            base64 = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * Приблизительный размер в байтах вместе с base64, для весов кэшей
+     */
+    public long weight() {
+        long chars = text.length();
+        return chars * Character.BYTES + (chars + 2) / 3 * 4;
+    }
+
+    @Override
+    public String toString() {
+        return "Payload[" + text.length() + " chars]";
+    }
+}
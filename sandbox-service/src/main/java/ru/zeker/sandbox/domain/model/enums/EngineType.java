@@ -0,0 +1,12 @@
+package ru.zeker.sandbox.domain.model.enums;
+
+public enum EngineType {
+    /**
+     * Удалённый Judge0 по HTTP
+     */
+    JUDGE0,
+    /**
+     * Дочерние процессы на хосте sandbox-service
+     */
+    LOCAL
+}
@@ -0,0 +1,20 @@
+package ru.zeker.sandbox.domain.model.enums;
+
+/**
+ * Очередь планировщика по ожидаемой стоимости выполнения, в порядке приоритета
+ */
+public enum ExecutionLane {
+    /**
+     * Короткие проверки: несколько тестов, быстрый язык
+     */
+    FAST,
+    STANDARD,
+    /**
+     * Большие наборы тестов и долгие задачи
+     */
+    HEAVY,
+    /**
+     * Фоновые перепроверки независимо от стоимости: обслуживаются последними
+     */
+    BACKGROUND
+}
@@ -0,0 +1,24 @@
+package ru.zeker.sandbox.domain.model.enums;
+
+public enum ExecutionMode {
+    /**
+     * Один случайный тест, синхронный вызов Judge0 с wait=true
+     */
+    SINGLE,
+    /**
+     * Все тесты параллельно одной пачкой через /submissions/batch
+     */
+    BATCH,
+    /**
+     * Тесты по одному, до первого упавшего
+     */
+    SEQUENTIAL,
+    /**
+     * Не больше K тестов одновременно, остальные отменяются после первого упавшего
+     */
+    FAIL_FAST,
+    /**
+     * Все тесты одним процессом через обвязку языка, вывод разбирается по тестам
+     */
+    HARNESS
+}
@@ -0,0 +1,13 @@
+package ru.zeker.sandbox.exception;
+
+import org.springframework.http.HttpStatus;
+import ru.zeker.common.exception.ApiException;
+
+/**
+ * Ни один узел Judge0 не принимает запросы: circuit breaker'ы разомкнуты или исчерпан бюджет повторов
+ */
+public class Judge0UnavailableException extends ApiException {
+    public Judge0UnavailableException(String message) {
+        super(message, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
@@ -5,16 +5,36 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import ru.zeker.common.dto.judge0.request.SubmissionRequest;
 import ru.zeker.common.dto.judge0.response.Status;
 import ru.zeker.common.dto.judge0.response.SubmissionResponse;
 import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
+import ru.zeker.common.dto.kafka.solution.TestResult;
+import ru.zeker.common.dto.task.OutputCheckMode;
 import ru.zeker.common.dto.task.TestCase;
-import ru.zeker.sandbox.client.Judge0Client;
+import ru.zeker.sandbox.domain.component.TestHarness;
+import ru.zeker.sandbox.domain.dto.ExecutionReport;
+import ru.zeker.sandbox.domain.dto.ExecutionTask;
+import ru.zeker.sandbox.domain.dto.Payload;
+import ru.zeker.sandbox.domain.model.enums.ExecutionMode;
+import ru.zeker.sandbox.service.engine.ExecutionEngine;
+import ru.zeker.sandbox.service.engine.ExecutionEngineRegistry;
+import ru.zeker.sandbox.util.OutputComparator;
+import ru.zeker.sandbox.util.SubmissionFingerprint;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
@@ -23,82 +43,347 @@ public class CodeExecutionService {
 
     private static final String ACCEPTED = "Accepted";
     private static final String WRONG_ANSWER = "Wrong Answer";
+    private static final String RUNTIME_ERROR = "Runtime Error (NZEC)";
 
-    private final Judge0Client judge0Client;
+    private static final int STATUS_ACCEPTED = 3;
+    private static final int STATUS_WRONG_ANSWER = 4;
+    private static final int STATUS_TIME_LIMIT_EXCEEDED = 5;
+    private static final int STATUS_RUNTIME_ERROR = 11;
+    private static final int STATUS_COMPILATION_ERROR = 6;
+
+    private final ExecutionEngineRegistry engineRegistry;
+    private final ExecutionResultCache executionResultCache;
+    private final TestHarness testHarness;
+    private final RuntimeStatistics runtimeStatistics;
+    private final ExecutionProgressPublisher progressPublisher;
+    private final TestSuiteCache testSuiteCache;
+    private final ExecutionCostEstimator costEstimator;
     private final Random random = new Random();
 
-    public SubmissionResponse execute(SolutionExecRequest request) {
-        int langId = request.getLanguage().getCode();
+    // Выполняющиеся сейчас запуски по контентному ключу: одинаковые решения ждут один общий результат
+    private final Map<String, CompletableFuture<ExecutionReport>> inFlight = new ConcurrentHashMap<>();
 
-        // Берём ОДИН случайный тест из списка
-        TestCase selectedTest = request.getTests().get(
-                random.nextInt(request.getTests().size())
-        );
+    @Value("${sandbox.execution.mode:SINGLE}")
+    private ExecutionMode executionMode;
+
+    // Сколько тестов FAIL_FAST выполняет одновременно
+    @Value("${sandbox.execution.fail-fast-parallelism:4}")
+    private int failFastParallelism;
 
-        String stdin = selectedTest.getInput();
-        String expectedOutput = selectedTest.getOutput();
+    // Относительная погрешность чисел в режиме проверки FLOAT_TOLERANCE
+    @Value("${sandbox.checker.float-tolerance:1e-6}")
+    private double floatTolerance;
 
-        // Нормализуем переносы строк
-        if (!stdin.endsWith("\n")) {
-            stdin += "\n";
+    // Сколько символов фактического вывода попадает в отчёт по тесту
+    @Value("${sandbox.checker.actual-preview-chars:4096}")
+    private int actualPreviewChars;
+
+    /**
+     * Запускает решение на тестах задачи.
+     * Future завершается, когда Judge0 вернёт результаты всех отправленных тестов
+     *
+     * @param request запрос на выполнение решения
+     * @return отчёт с итоговым вердиктом и результатами по каждому тесту
+     */
+    public CompletableFuture<ExecutionReport> execute(SolutionExecRequest request) {
+        // Режим входит в ключ: в SINGLE проверяется только один тест
+        String cacheKey = executionMode + ":" + SubmissionFingerprint.of(request);
+        ExecutionReport cached = executionResultCache.get(cacheKey);
+        if (cached != null) {
+            log.info("Execution result for solution {} taken from cache", request.getSolutionId());
+            return CompletableFuture.completedFuture(cached);
         }
-        if (!expectedOutput.endsWith("\n")) {
-            expectedOutput += "\n";
+
+        CompletableFuture<ExecutionReport> promise = new CompletableFuture<>();
+        CompletableFuture<ExecutionReport> running = inFlight.putIfAbsent(cacheKey, promise);
+        if (running != null) {
+            log.info("Solution {} joined identical execution in progress", request.getSolutionId());
+            return running;
         }
 
-        String encodedCode = Base64.getEncoder()
-                .encodeToString(request.getCode().getBytes(StandardCharsets.UTF_8));
-        String encodedStdin = Base64.getEncoder()
-                .encodeToString(stdin.getBytes(StandardCharsets.UTF_8));
+        // В harness время и память известны только для всего набора, в статистику по тестам они не идут
+        boolean harness = executionMode == ExecutionMode.HARNESS && testHarness.supports(request.getLanguage());
+        long startedAt = System.nanoTime();
+        try {
+            CompletableFuture<ExecutionReport> execution = switch (executionMode) {
+                case SINGLE -> executeSingle(request);
+                case BATCH -> executeBatch(request);
+                case SEQUENTIAL -> new FailFastRun(request).start(1);
+                case FAIL_FAST -> new FailFastRun(request).start(Math.max(1, failFastParallelism));
+                case HARNESS -> harness
+                        ? executeHarness(request)
+                        : executeBatch(request);
+            };
+            execution.whenComplete((report, error) -> {
+                if (error != null) {
+                    promise.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                } else {
+                    // Сначала кэш, потом снятие с выполнения: новые дубликаты не должны проскочить мимо обоих.
+                    // TLE не кэшируется: лимит реального времени зависит от статистики экземпляра
+                    if (!isTimeLimitExceeded(report)) {
+                        executionResultCache.put(cacheKey, report);
+                    }
+                    promise.complete(report);
+                    if (!harness) {
+                        runtimeStatistics.record(request, report);
+                    }
+                    recordCost(request, report, startedAt);
+                }
+                inFlight.remove(cacheKey, promise);
+            });
+        } catch (Exception e) {
+            inFlight.remove(cacheKey, promise);
+            promise.completeExceptionally(e);
+        }
+        return promise;
+    }
 
-        SubmissionRequest sub = SubmissionRequest.builder()
-                .sourceCode(encodedCode)
-                .languageId(langId)
-                .stdin(encodedStdin)
-                .build();
+    // Ошибка компиляции завершается без прогона тестов и о стоимости задачи ничего не говорит
+    private void recordCost(SolutionExecRequest request, ExecutionReport report, long startedAt) {
+        SubmissionResponse verdict = report.getResponse();
+        if (verdict == null || verdict.getStatus() == null || verdict.getStatus().getId() == STATUS_COMPILATION_ERROR) {
+            return;
+        }
+        int testsRun = report.getTestResults() == null ? 1 : report.getTestResults().size();
+        costEstimator.record(request, Duration.ofNanos(System.nanoTime() - startedAt), testsRun);
+    }
+
+    private CompletableFuture<ExecutionReport> executeSingle(SolutionExecRequest request) {
+        // Берём ОДИН случайный тест из списка
+        int index = random.nextInt(request.getTests().size());
+        TestCase selectedTest = request.getTests().get(index);
 
         log.info("Executing single random test case");
 
-        SubmissionResponse response = judge0Client.submitCode(sub, true, true);
+        return engineRegistry.forLanguage(request.getLanguage())
+                .submit(toTask(request, Payload.of(request.getCode()), testSuiteCache.inputs(request).get(index)))
+                .thenApply(response -> toSingleReport(request, selectedTest, response));
+    }
+
+    private ExecutionReport toSingleReport(SolutionExecRequest request, TestCase selectedTest, SubmissionResponse response) {
+        TestResult testResult = toTestResult(0, selectedTest, response, request.getCheckMode());
+        progressPublisher.testFinished(request, 0, 1, testResult);
 
         // Проверяем результат вручную
-        if (isCorrect(response, expectedOutput)) {
+        if (testResult.isPassed()) {
             // Возвращаем успешный ответ с ID=3 (Accepted)
-            return SubmissionResponse.builder()
-                    .status(Status.builder()
-                            .id(3)
-                            .description(ACCEPTED)
+            return ExecutionReport.builder()
+                    .response(SubmissionResponse.builder()
+                            .status(Status.builder()
+                                    .id(STATUS_ACCEPTED)
+                                    .description(ACCEPTED)
+                                    .build())
+                            .stdout(response.getStdout())
+                            .time(response.getTime())
+                            .memory(response.getMemory())
                             .build())
-                    .stdout(response.getStdout())
-                    .time(response.getTime())
-                    .memory(response.getMemory())
+                    .testResults(List.of(testResult))
+                    .testCount(1)
                     .build();
         } else {
-            return SubmissionResponse.builder()
+            return ExecutionReport.builder()
+                    .response(wrongAnswer(response))
+                    .testResults(List.of(testResult))
+                    .testCount(1)
+                    .build();
+        }
+    }
+
+    private CompletableFuture<ExecutionReport> executeBatch(SolutionExecRequest request) {
+        List<TestCase> tests = request.getTests();
+
+        log.info("Executing {} test cases in batch mode", tests.size());
+
+        // Код кодируется один раз на весь пакет, входы - один раз на версию набора
+        Payload source = Payload.of(request.getCode());
+        List<CompletableFuture<SubmissionResponse>> submissions = engineRegistry.forLanguage(request.getLanguage())
+                .submitAll(testSuiteCache.inputs(request).stream()
+                        .map(input -> toTask(request, source, input))
+                        .toList());
+
+        // Каждый тест проверяется и публикуется сразу по завершении, не дожидаясь остальных
+        List<CompletableFuture<TestResult>> testResults = new ArrayList<>(tests.size());
+        for (int i = 0; i < tests.size(); i++) {
+            int index = i;
+            testResults.add(submissions.get(i).thenApply(response -> {
+                TestResult testResult = toTestResult(index, tests.get(index), response, request.getCheckMode());
+                progressPublisher.testFinished(request, index, tests.size(), testResult);
+                return testResult;
+            }));
+        }
+
+        return CompletableFuture.allOf(testResults.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> toBatchReport(tests,
+                        submissions.stream().map(CompletableFuture::join).toList(),
+                        testResults.stream().map(CompletableFuture::join).toList()));
+    }
+
+    private CompletableFuture<ExecutionReport> executeHarness(SolutionExecRequest request) {
+        List<TestCase> tests = request.getTests();
+        String boundary = testHarness.newBoundary();
+
+        log.info("Executing {} test cases in one harness process", tests.size());
+
+        ExecutionTask task = toTask(request,
+                Payload.of(testHarness.wrap(request.getLanguage(), request.getCode())),
+                Payload.of(testHarness.packInput(boundary, tests)),
+                tests.size());
+        return engineRegistry.forLanguage(request.getLanguage())
+                .submit(task)
+                .thenApply(response -> toHarnessReport(tests, response, boundary, request.getCheckMode()));
+    }
+
+    private ExecutionReport toHarnessReport(List<TestCase> tests, SubmissionResponse response, String boundary,
+                                            OutputCheckMode checkMode) {
+        List<TestHarness.TestOutput> outputs = testHarness.unpack(boundary, safeDecodeBase64(response.getStdout()));
+
+        // Время и память известны только для процесса целиком
+        List<TestResult> testResults = new ArrayList<>(tests.size());
+        TestHarness.TestOutput firstFailed = null;
+        for (int i = 0; i < tests.size(); i++) {
+            TestCase test = tests.get(i);
+            TestHarness.TestOutput output = i < outputs.size() ? outputs.get(i) : null;
+            boolean passed = output != null && output.ok()
+                    && OutputComparator.matches(output.output(), test.getOutput(), checkMode, floatTolerance);
+            testResults.add(TestResult.builder()
+                    .index(i)
+                    .actual(output == null ? null : StringUtils.truncate(output.output(), actualPreviewChars))
+                    .passed(passed)
+                    .build());
+            if (!passed && firstFailed == null) {
+                firstFailed = output == null ? new TestHarness.TestOutput(false, null) : output;
+            }
+        }
+
+        SubmissionResponse verdict;
+        if (firstFailed == null) {
+            verdict = SubmissionResponse.builder()
                     .status(Status.builder()
-                            .id(4)
-                            .description(WRONG_ANSWER)
+                            .id(STATUS_ACCEPTED)
+                            .description(ACCEPTED)
                             .build())
-                    .stdout(response.getStdout())
-                    .stderr(response.getStderr())
                     .time(response.getTime())
                     .memory(response.getMemory())
                     .build();
+        } else if (!isAccepted(response)) {
+            // Процесс обвязки целиком упал по компиляции, TLE или памяти
+            verdict = response;
+        } else if (!firstFailed.ok()) {
+            verdict = runtimeError(response);
+        } else {
+            verdict = wrongAnswer(response);
         }
+        return ExecutionReport.builder()
+                .response(verdict)
+                .testResults(testResults)
+                .testCount(tests.size())
+                .build();
     }
 
-    private boolean isCorrect(SubmissionResponse response, String expectedOutput) {
-        if (response.getStdout() == null) {
-            return false;
+    private ExecutionReport toBatchReport(List<TestCase> tests, List<SubmissionResponse> responses, List<TestResult> testResults) {
+        SubmissionResponse firstFailed = null;
+        float maxTime = 0;
+        float maxMemory = 0;
+        for (int i = 0; i < tests.size(); i++) {
+            SubmissionResponse response = responses.get(i);
+            TestResult testResult = testResults.get(i);
+
+            maxTime = Math.max(maxTime, Objects.requireNonNullElse(response.getTime(), 0f));
+            maxMemory = Math.max(maxMemory, Objects.requireNonNullElse(response.getMemory(), 0f));
+            if (!testResult.isPassed() && firstFailed == null) {
+                firstFailed = response;
+            }
+        }
+
+        if (firstFailed == null) {
+            return ExecutionReport.builder()
+                    .response(SubmissionResponse.builder()
+                            .status(Status.builder()
+                                    .id(STATUS_ACCEPTED)
+                                    .description(ACCEPTED)
+                                    .build())
+                            .time(maxTime)
+                            .memory(maxMemory)
+                            .build())
+                    .testResults(testResults)
+                    .testCount(tests.size())
+                    .build();
         }
 
-        String actualOutput = safeDecodeBase64(response.getStdout());
+        return ExecutionReport.builder()
+                .response(failureVerdict(firstFailed))
+                .testResults(testResults)
+                .testCount(tests.size())
+                .build();
+    }
+
+    private static boolean isTimeLimitExceeded(ExecutionReport report) {
+        SubmissionResponse verdict = report.getResponse();
+        return verdict != null && verdict.getStatus() != null && verdict.getStatus().getId() == STATUS_TIME_LIMIT_EXCEEDED;
+    }
+
+    private ExecutionTask toTask(SolutionExecRequest request, Payload sourceCode, Payload stdin) {
+        return toTask(request, sourceCode, stdin, 1);
+    }
+
+    /**
+     * @param runs сколько тестов выполняет один запуск: лимиты считаются на все сразу
+     */
+    private ExecutionTask toTask(SolutionExecRequest request, Payload sourceCode, Payload stdin, int runs) {
+        return ExecutionTask.builder()
+                .solutionId(request.getSolutionId())
+                .language(request.getLanguage())
+                .sourceCode(sourceCode)
+                .stdin(stdin)
+                .limits(runtimeStatistics.limits(request, runs))
+                .build();
+    }
+
+    // Ошибку Judge0 (компиляция, TLE, runtime) отдаём как есть, несовпадение вывода - как Wrong Answer
+    private SubmissionResponse failureVerdict(SubmissionResponse failed) {
+        return isAccepted(failed) ? wrongAnswer(failed) : failed;
+    }
+
+    private TestResult toTestResult(int index, TestCase test, SubmissionResponse response, OutputCheckMode checkMode) {
+        return TestResult.builder()
+                .index(index)
+                .actual(OutputComparator.preview(response.getStdout(), actualPreviewChars))
+                .passed(OutputComparator.matchesEncoded(response.getStdout(), test.getOutput(), checkMode, floatTolerance))
+                .timeMs(toMillis(response.getTime()))
+                .build();
+    }
 
-        String normalizedActual = actualOutput.stripTrailing();
-        String normalizedExpected = expectedOutput.stripTrailing();
+    private SubmissionResponse wrongAnswer(SubmissionResponse response) {
+        return SubmissionResponse.builder()
+                .status(Status.builder()
+                        .id(STATUS_WRONG_ANSWER)
+                        .description(WRONG_ANSWER)
+                        .build())
+                .stdout(response.getStdout())
+                .stderr(response.getStderr())
+                .time(response.getTime())
+                .memory(response.getMemory())
+                .build();
+    }
+
+    private SubmissionResponse runtimeError(SubmissionResponse response) {
+        return SubmissionResponse.builder()
+                .status(Status.builder()
+                        .id(STATUS_RUNTIME_ERROR)
+                        .description(RUNTIME_ERROR)
+                        .build())
+                .stderr(response.getStderr())
+                .time(response.getTime())
+                .memory(response.getMemory())
+                .build();
+    }
 
-        log.info("Comparing: actual='{}', expected='{}'", normalizedActual, normalizedExpected);
-        return normalizedActual.equals(normalizedExpected);
+    private boolean isAccepted(SubmissionResponse response) {
+        return response.getStatus() != null && response.getStatus().getId() == STATUS_ACCEPTED;
+    }
+
+    private int toMillis(Float seconds) {
+        return seconds == null ? 0 : Math.round(seconds * 1000);
     }
 
     private String safeDecodeBase64(String value) {
@@ -113,4 +398,106 @@ public class CodeExecutionService {
             return value;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Прогон тестов окнами по K штук: следующий тест отправляется, когда освобождается место.
+     * Первый упавший тест завершает прогон, ещё не отправленные тесты пропускаются,
+     * а ожидание уже отправленных отменяется
+     */
+    private final class FailFastRun {
+
+        private final SolutionExecRequest request;
+        private final ExecutionEngine engine;
+        private final List<TestCase> tests;
+        private final Payload source;
+        private final List<Payload> inputs;
+        private final SubmissionResponse[] responses;
+        private final TestResult[] testResults;
+        private final Map<Integer, CompletableFuture<SubmissionResponse>> running = new ConcurrentHashMap<>();
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<ExecutionReport> result = new CompletableFuture<>();
+
+        private FailFastRun(SolutionExecRequest request) {
+            this.request = request;
+            this.engine = engineRegistry.forLanguage(request.getLanguage());
+            this.tests = request.getTests();
+            this.source = Payload.of(request.getCode());
+            this.inputs = testSuiteCache.inputs(request);
+            this.responses = new SubmissionResponse[tests.size()];
+            this.testResults = new TestResult[tests.size()];
+            this.remaining = new AtomicInteger(tests.size());
+        }
+
+        private CompletableFuture<ExecutionReport> start(int parallelism) {
+            log.info("Executing {} test cases with fail-fast, parallelism {}", tests.size(), parallelism);
+            for (int i = 0; i < Math.min(parallelism, tests.size()); i++) {
+                launchNext();
+            }
+            return result;
+        }
+
+        private void launchNext() {
+            int index = next.getAndIncrement();
+            if (result.isDone() || index >= tests.size()) {
+                return;
+            }
+
+            CompletableFuture<SubmissionResponse> submission;
+            try {
+                submission = engine.submit(toTask(request, source, inputs.get(index)));
+            } catch (Exception e) {
+                submission = CompletableFuture.failedFuture(e);
+            }
+            running.put(index, submission);
+            submission.whenComplete((response, error) -> onComplete(index, response, error));
+        }
+
+        private void onComplete(int index, SubmissionResponse response, Throwable error) {
+            running.remove(index);
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                if (!(cause instanceof CancellationException) && result.completeExceptionally(cause)) {
+                    cancelRunning();
+                }
+                return;
+            }
+
+            TestCase test = tests.get(index);
+            TestResult testResult = toTestResult(index, test, response, request.getCheckMode());
+            responses[index] = response;
+            testResults[index] = testResult;
+            progressPublisher.testFinished(request, index, tests.size(), testResult);
+
+            if (!testResult.isPassed()) {
+                ExecutionReport report = ExecutionReport.builder()
+                        .response(failureVerdict(response))
+                        .testResults(completedResults())
+                        .testCount(tests.size())
+                        .build();
+                if (result.complete(report)) {
+                    log.info("Test {} of solution {} failed, cancelling remaining tests", index, request.getSolutionId());
+                    cancelRunning();
+                }
+                return;
+            }
+
+            if (remaining.decrementAndGet() == 0) {
+                result.complete(toBatchReport(tests, List.of(responses), List.of(testResults)));
+            } else {
+                launchNext();
+            }
+        }
+
+        // Результаты в порядке тестов с их номерами; ещё не завершённые и не запущенные не попадают в отчёт
+        private List<TestResult> completedResults() {
+            return Arrays.stream(testResults)
+                    .filter(Objects::nonNull)
+                    .toList();
+        }
+
+        private void cancelRunning() {
+            running.values().forEach(submission -> submission.cancel(false));
+        }
+    }
+}
@@ -6,70 +6,147 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 import ru.zeker.common.dto.judge0.response.SubmissionResponse;
 import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
 import ru.zeker.common.dto.kafka.solution.SolutionExecResult;
 import ru.zeker.common.dto.solution.SolutionStatus;
+import ru.zeker.sandbox.domain.dto.ExecutionReport;
 import ru.zeker.sandbox.exception.CodeExecutionException;
+import ru.zeker.sandbox.exception.Judge0UnavailableException;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ConsumerKafkaListeners {
 
+    static final String LISTENER_ID = "solutionExecListener";
+
     private final KafkaProducer kafkaProducer;
     private final CodeExecutionService codeExecutionService;
+    private final ExecutionAdmissionController admissionController;
+    private final TestSuiteCache testSuiteCache;
 
-    @Async("virtualThead") // Чтобы не блокировать 16 потоков у консюмера при ожидании выполнении кода
     @KafkaListener(
+            id = LISTENER_ID,
+            idIsGroup = false,
             topics = "solution.exec.request",
             containerFactory = "solutionExecKafkaListenerContainerFactory"
     )
     void listen(
-            ConsumerRecord<String, SolutionExecRequest> record
+            ConsumerRecord<String, SolutionExecRequest> record,
+            Acknowledgment acknowledgment
     ) {
+        log.info("Message {}", record);
+        SolutionExecRequest request = record.value();
+        if (request == null) {
+            log.warn("Empty execution request (offset={}, partition={})", record.offset(), record.partition());
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        try {
+            testSuiteCache.resolve(request);
+        } catch (Exception e) {
+            handleFailure(request, e).whenComplete((result, error) -> acknowledgment.acknowledge());
+            return;
+        }
+
+        // Листенер не ждёт выполнения: запуск откладывается до появления места,
+        // а оффсет подтверждается только после публикации результата
+        admissionController.admit(request, () -> process(request)
+                .whenComplete((result, error) -> acknowledgment.acknowledge()));
+    }
+
+    private CompletableFuture<?> process(SolutionExecRequest request) {
+        CompletableFuture<ExecutionReport> execution;
         try {
-            log.info("Message {}", record);
-            SubmissionResponse response = codeExecutionService.execute(record.value());
-            if (!isValidStatus(response)) {
-                log.error("response {}", response);
-                throw new CodeExecutionException("Execution failed: " + Objects.requireNonNullElse(response.getMessage(), response.getStatus().getDescription()));
-            }
-            log.info("Result {}", response);
+            execution = codeExecutionService.execute(request);
+        } catch (Exception e) {
+            execution = CompletableFuture.failedFuture(e);
+        }
+
+        return execution
+                .handle((report, error) -> error != null
+                        ? handleFailure(request, error instanceof CompletionException ? error.getCause() : error)
+                        : handleReport(request, report))
+                .thenCompose(Function.identity())
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.error("Failed to publish execution result for solution {}: {}",
+                                request.getSolutionId(), error.getMessage(), error);
+                    }
+                });
+    }
+
+    private CompletableFuture<SendResult<String, Object>> handleReport(SolutionExecRequest request, ExecutionReport report) {
+        SubmissionResponse response = report.getResponse();
+        if (!isValidStatus(response)) {
+            log.error("response {}", response);
             SolutionExecResult solutionExecResult = SolutionExecResult.builder()
-                    .solutionId(record.value().getSolutionId())
-                    .status(SolutionStatus.SUCCESS)
+                    .solutionId(request.getSolutionId())
+                    .userId(request.getUserId())
+                    .rejudgeJobId(request.getRejudgeJobId())
+                    .status(SolutionStatus.FAILED)
+                    .descriptionError("Execution failed: " + Objects.requireNonNullElse(response.getMessage(), response.getStatus().getDescription()))
+                    .testResults(report.getTestResults())
+                    .testCount(report.getTestCount())
                     .build();
-            kafkaProducer.sendEmailEvent(solutionExecResult);
-            log.info("Message processing completed");
-        } catch (RetryableException | FeignException.ServiceUnavailable e) {
-            log.error("Judge0 service is temporarily unavailable: {}", e.getMessage(), e);
+            return kafkaProducer.sendEmailEvent(solutionExecResult);
+        }
+        log.info("Result {}", response);
+        SolutionExecResult solutionExecResult = SolutionExecResult.builder()
+                .solutionId(request.getSolutionId())
+                .userId(request.getUserId())
+                .rejudgeJobId(request.getRejudgeJobId())
+                .status(SolutionStatus.SUCCESS)
+                .testResults(report.getTestResults())
+                .testCount(report.getTestCount())
+                .build();
+        log.info("Message processing completed");
+        return kafkaProducer.sendEmailEvent(solutionExecResult);
+    }
+
+    private CompletableFuture<SendResult<String, Object>> handleFailure(SolutionExecRequest request, Throwable error) {
+        if (error instanceof RetryableException
+                || error instanceof FeignException.ServiceUnavailable
+                || error instanceof Judge0UnavailableException) {
+            log.error("Judge0 service is temporarily unavailable: {}", error.getMessage(), error);
             SolutionExecResult solutionExecResult = SolutionExecResult.builder()
-                    .solutionId(record.value().getSolutionId())
+                    .solutionId(request.getSolutionId())
+                    .userId(request.getUserId())
+                    .rejudgeJobId(request.getRejudgeJobId())
                     .status(SolutionStatus.SERVICE_UNAVAILABLE)
                     .descriptionError("Execution service is temporarily unavailable")
                     .build();
-            kafkaProducer.sendEmailEvent(solutionExecResult);
-        } catch (CodeExecutionException e) {
-            log.warn("Code execution failed: {}", e.getMessage());
+            return kafkaProducer.sendEmailEvent(solutionExecResult);
+        } else if (error instanceof CodeExecutionException) {
+            log.warn("Code execution failed: {}", error.getMessage());
             SolutionExecResult solutionExecResult = SolutionExecResult.builder()
-                    .solutionId(record.value().getSolutionId())
+                    .solutionId(request.getSolutionId())
+                    .userId(request.getUserId())
+                    .rejudgeJobId(request.getRejudgeJobId())
                     .status(SolutionStatus.FAILED)
-                    .descriptionError(e.getMessage())
+                    .descriptionError(error.getMessage())
                     .build();
-            kafkaProducer.sendEmailEvent(solutionExecResult);
-        } catch (Exception e) {
-            log.error("Error while request to judge0 {}", e.getMessage(), e);
+            return kafkaProducer.sendEmailEvent(solutionExecResult);
+        } else {
+            log.error("Error while request to judge0 {}", error.getMessage(), error);
             SolutionExecResult solutionExecResult = SolutionExecResult.builder()
-                    .solutionId(record.value().getSolutionId())
+                    .solutionId(request.getSolutionId())
+                    .userId(request.getUserId())
+                    .rejudgeJobId(request.getRejudgeJobId())
                     .status(SolutionStatus.FAILED)
-                    .descriptionError(e.getMessage())
+                    .descriptionError(error.getMessage())
                     .build();
-            kafkaProducer.sendEmailEvent(solutionExecResult);
+            return kafkaProducer.sendEmailEvent(solutionExecResult);
         }
     }
 
@@ -0,0 +1,321 @@
+package ru.zeker.sandbox.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+import ru.zeker.common.dto.kafka.solution.ExecutionPriority;
+import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
+import ru.zeker.common.dto.solution.Language;
+import ru.zeker.sandbox.config.AdmissionProperties;
+import ru.zeker.sandbox.domain.model.enums.ExecutionLane;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Ограничивает число одновременных запусков на узле, по каждому языку и по каждому пользователю.
+ * <p>
+ * Решения раскладываются по очередям (FAST, STANDARD, HEAVY) по ожидаемой стоимости,
+ * см. {@link ExecutionCostEstimator}. Каждая очередь может занять не больше своей доли maxInFlight,
+ * а освободившиеся места раздаются взвешенно по кругу, начиная с коротких очередей, поэтому
+ * тяжёлые наборы тестов не задерживают быстрые проверки. Фоновые перепроверки идут в BACKGROUND
+ * с небольшой долей мощности и не вытесняют решения пользователей.
+ * <p>
+ * Внутри очереди пользователи обслуживаются по deficit round robin: за каждый ход пользователь
+ * получает квант ожидаемого времени и запускает решения, пока их стоимость укладывается в накопленный
+ * дефицит. Так пользователь с сотнями сабмишенов получает ту же долю, что и остальные.
+ * <p>
+ * Всё, что не помещается в лимиты, ждёт в локальной очереди, а листенер
+ * solution.exec.request ставится на паузу, чтобы не вычитывать новые записи.
+ * Листенер возобновляется, когда выполняющихся и ожидающих становится меньше low-water mark.
+ */
+@Slf4j
+@Service
+public class ExecutionAdmissionController {
+
+    private final AdmissionProperties properties;
+    private final ExecutionCostEstimator costEstimator;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final ExecutorService virtualThead;
+    private final Map<UserClass, Integer> waitingByClass = new EnumMap<>(UserClass.class);
+    private final Map<ExecutionLane, Map<UserClass, Timer>> queueWaitTimers = new EnumMap<>(ExecutionLane.class);
+
+    // Пользователи с ожидающими запусками в порядке обхода
+    private final Map<ExecutionLane, Map<UUID, UserQueue>> waiting = new EnumMap<>(ExecutionLane.class);
+    private final Map<ExecutionLane, Integer> inFlightByLane = new EnumMap<>(ExecutionLane.class);
+    private final Map<Language, Integer> inFlightByLanguage = new HashMap<>();
+    private final Map<UUID, Integer> activeByUser = new HashMap<>();
+    private final Map<UUID, Integer> inFlightByUser = new HashMap<>();
+    private int inFlight;
+    private int waitingCount;
+    private boolean paused;
+
+    public ExecutionAdmissionController(AdmissionProperties properties,
+                                        ExecutionCostEstimator costEstimator,
+                                        KafkaListenerEndpointRegistry listenerRegistry,
+                                        ExecutorService virtualThead,
+                                        MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.costEstimator = costEstimator;
+        this.listenerRegistry = listenerRegistry;
+        this.virtualThead = virtualThead;
+        for (ExecutionLane lane : ExecutionLane.values()) {
+            waiting.put(lane, new LinkedHashMap<>());
+            Map<UserClass, Timer> timers = new EnumMap<>(UserClass.class);
+            for (UserClass userClass : UserClass.values()) {
+                timers.put(userClass, Timer.builder("sandbox.admission.queue.wait")
+                        .description("Time from receiving a solution to starting its execution")
+                        .tag("lane", lane.name().toLowerCase())
+                        .tag("user_class", userClass.tag())
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry));
+            }
+            queueWaitTimers.put(lane, timers);
+        }
+        for (UserClass userClass : UserClass.values()) {
+            Gauge.builder("sandbox.admission.queue.depth", this, controller -> controller.waiting(userClass))
+                    .description("Solutions waiting for execution capacity")
+                    .tag("user_class", userClass.tag())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Запускает выполнение, как только для него освободится место в его очереди
+     *
+     * @param request   решение; по языку и пользователю применяются отдельные лимиты,
+     *                  по стоимости выбирается очередь
+     * @param execution запуск выполнения; место освобождается по завершении возвращённого future
+     */
+    public void admit(SolutionExecRequest request, Supplier<CompletableFuture<?>> execution) {
+        double cost = costEstimator.estimate(request);
+        ExecutionLane lane = request.getPriority() == ExecutionPriority.BACKGROUND
+                ? ExecutionLane.BACKGROUND
+                : costEstimator.lane(cost);
+        log.debug("Solution {} estimated at {} ms, lane {}", request.getSolutionId(), (long) cost, lane);
+
+        Pending pending;
+        synchronized (this) {
+            // Класс определяется до учёта нового решения: всё сверх лимита на пользователя - heavy
+            UserClass userClass = activeByUser.getOrDefault(request.getUserId(), 0) < properties.getMaxInFlightPerUser()
+                    ? UserClass.REGULAR
+                    : UserClass.HEAVY;
+            pending = new Pending(lane, userClass, cost, request, execution, System.nanoTime());
+            activeByUser.merge(pending.userId(), 1, Integer::sum);
+
+            // Решения одного пользователя в очереди не обгоняют друг друга
+            if (waiting.get(lane).containsKey(pending.userId()) || !hasCapacity(pending)) {
+                waiting.get(lane)
+                        .computeIfAbsent(pending.userId(), u -> new UserQueue())
+                        .pending.addLast(pending);
+                waitingCount++;
+                waitingByClass.merge(userClass, 1, Integer::sum);
+                pause();
+                return;
+            }
+            acquire(pending);
+        }
+        start(pending);
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int waiting() {
+        return waitingCount;
+    }
+
+    private synchronized int waiting(UserClass userClass) {
+        return waitingByClass.getOrDefault(userClass, 0);
+    }
+
+    private void start(Pending pending) {
+        queueWaitTimers.get(pending.lane()).get(pending.userClass())
+                .record(System.nanoTime() - pending.receivedAt(), TimeUnit.NANOSECONDS);
+        virtualThead.execute(() -> {
+            CompletableFuture<?> future;
+            try {
+                future = pending.execution().get();
+            } catch (Exception e) {
+                log.error("Execution failed to start: {}", e.getMessage(), e);
+                future = CompletableFuture.completedFuture(null);
+            }
+            // Стоимость учитывает CodeExecutionService: только реальные прогоны, без кэша и ошибок
+            future.whenComplete((result, error) -> release(pending));
+        });
+    }
+
+    private void release(Pending pending) {
+        List<Pending> toStart = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            inFlightByLane.merge(pending.lane(), -1, Integer::sum);
+            inFlightByLanguage.merge(pending.language(), -1, Integer::sum);
+            decrement(inFlightByUser, pending.userId());
+            decrement(activeByUser, pending.userId());
+            drainWaiting(toStart);
+            if (paused && inFlight + waitingCount <= properties.getLowWaterMark()) {
+                resume();
+            }
+        }
+        toStart.forEach(this::start);
+    }
+
+    /**
+     * Забирает ожидающие запуски, пока есть место на узле: за проход каждая очередь
+     * в порядке приоритета отдаёт до weight запусков
+     */
+    private void drainWaiting(List<Pending> toStart) {
+        boolean progress = true;
+        while (progress && waitingCount > 0 && inFlight < properties.getMaxInFlight()) {
+            progress = false;
+            for (ExecutionLane lane : ExecutionLane.values()) {
+                for (int taken = 0; taken < weight(lane) && takeFromLane(lane, toStart); taken++) {
+                    progress = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Один запуск из очереди по deficit round robin. Пользователь, чьё первое решение сейчас
+     * не помещается в лимиты, пропускается и квант не получает
+     */
+    private boolean takeFromLane(ExecutionLane lane, List<Pending> toStart) {
+        Map<UUID, UserQueue> users = waiting.get(lane);
+        double quantum = Math.max(1, properties.getUserQuantum().toMillis());
+        boolean eligible = true;
+        while (eligible) {
+            eligible = false;
+            for (Iterator<Map.Entry<UUID, UserQueue>> it = users.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<UUID, UserQueue> entry = it.next();
+                UserQueue queue = entry.getValue();
+                Pending head = queue.pending.peekFirst();
+                if (head == null || !hasCapacity(head)) {
+                    continue;
+                }
+                eligible = true;
+                queue.deficit += quantum;
+                if (head.cost() > queue.deficit) {
+                    continue;
+                }
+
+                queue.pending.pollFirst();
+                queue.deficit -= head.cost();
+                it.remove();
+                // Пользователь уходит в конец обхода; с опустевшей очередью дефицит не копится
+                if (!queue.pending.isEmpty()) {
+                    users.put(entry.getKey(), queue);
+                }
+                acquire(head);
+                waitingCount--;
+                waitingByClass.merge(head.userClass(), -1, Integer::sum);
+                toStart.add(head);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasCapacity(Pending pending) {
+        if (inFlight >= properties.getMaxInFlight()) {
+            return false;
+        }
+        if (inFlightByLane.getOrDefault(pending.lane(), 0) >= laneLimit(pending.lane())) {
+            return false;
+        }
+        if (inFlightByUser.getOrDefault(pending.userId(), 0) >= properties.getMaxInFlightPerUser()) {
+            return false;
+        }
+        Language language = pending.language();
+        Integer languageLimit = language == null ? null : properties.getMaxInFlightPerLanguage().get(language);
+        return languageLimit == null || inFlightByLanguage.getOrDefault(language, 0) < languageLimit;
+    }
+
+    private int laneLimit(ExecutionLane lane) {
+        AdmissionProperties.Lane settings = properties.getLanes().get(lane);
+        double share = settings == null ? 1.0 : settings.getMaxShare();
+        return Math.max(1, (int) Math.ceil(properties.getMaxInFlight() * share));
+    }
+
+    private int weight(ExecutionLane lane) {
+        AdmissionProperties.Lane settings = properties.getLanes().get(lane);
+        return settings == null ? 1 : Math.max(1, settings.getWeight());
+    }
+
+    private void acquire(Pending pending) {
+        inFlight++;
+        inFlightByLane.merge(pending.lane(), 1, Integer::sum);
+        inFlightByLanguage.merge(pending.language(), 1, Integer::sum);
+        inFlightByUser.merge(pending.userId(), 1, Integer::sum);
+    }
+
+    private void decrement(Map<UUID, Integer> counters, UUID userId) {
+        // Нулевые счётчики удаляются, чтобы карты не росли с числом пользователей
+        counters.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void pause() {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(ConsumerKafkaListeners.LISTENER_ID);
+        if (!paused && container != null) {
+            log.info("Execution capacity exhausted (inFlight={}, waiting={}), pausing listener", inFlight, waitingCount);
+            container.pause();
+            paused = true;
+        }
+    }
+
+    private void resume() {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(ConsumerKafkaListeners.LISTENER_ID);
+        if (container != null) {
+            log.info("Execution capacity available (inFlight={}, waiting={}), resuming listener", inFlight, waitingCount);
+            container.resume();
+        }
+        paused = false;
+    }
+
+    /**
+     * Класс пользователя для метрик: heavy - решение пришло сверх лимита одновременных запусков пользователя
+     */
+    private enum UserClass {
+        REGULAR,
+        HEAVY;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final class UserQueue {
+        private final Deque<Pending> pending = new ArrayDeque<>();
+        private double deficit;
+    }
+
+    private record Pending(ExecutionLane lane, UserClass userClass, double cost, SolutionExecRequest request,
+                           Supplier<CompletableFuture<?>> execution, long receivedAt) {
+
+        Language language() {
+            return request.getLanguage();
+        }
+
+        UUID userId() {
+            return request.getUserId();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.zeker.sandbox.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
+import ru.zeker.common.dto.solution.Language;
+import ru.zeker.sandbox.config.AdmissionProperties;
+import ru.zeker.sandbox.domain.model.enums.ExecutionLane;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Оценивает стоимость решения как число тестов, умноженное на ожидаемое время теста.
+ * Время теста берётся из скользящего среднего прошлых запусков задачи на этом языке,
+ * а без истории - из настроек по языку
+ */
+@Component
+public class ExecutionCostEstimator {
+
+    private final AdmissionProperties properties;
+    private final Cache<TaskKey, Double> perTestMillis;
+
+    public ExecutionCostEstimator(AdmissionProperties properties) {
+        this.properties = properties;
+        this.perTestMillis = Caffeine.newBuilder()
+                .maximumSize(properties.getCost().getMaxTasks())
+                .build();
+    }
+
+    /**
+     * Ожидаемое время выполнения всех тестов решения, мс
+     */
+    public double estimate(SolutionExecRequest request) {
+        return testCount(request) * perTest(request);
+    }
+
+    /**
+     * Первая по приоритету очередь, в границу которой укладывается оценка; BACKGROUND по стоимости не выбирается
+     */
+    public ExecutionLane lane(double costMillis) {
+        Map<ExecutionLane, AdmissionProperties.Lane> lanes = properties.getLanes();
+        for (ExecutionLane lane : ExecutionLane.values()) {
+            AdmissionProperties.Lane settings = lanes.get(lane);
+            if (lane != ExecutionLane.BACKGROUND && settings != null && settings.getMaxCost() != null
+                    && costMillis <= settings.getMaxCost().toMillis()) {
+                return lane;
+            }
+        }
+        return ExecutionLane.HEAVY;
+    }
+
+    /**
+     * Учитывает фактическое время выполнения решения в истории задачи
+     *
+     * @param testsRun сколько тестов реально выполнено: при остановке на первой ошибке и в SINGLE - не все
+     */
+    public void record(SolutionExecRequest request, Duration elapsed, int testsRun) {
+        if (request.getTaskId() == null || request.getLanguage() == null) {
+            return;
+        }
+        double observed = (double) elapsed.toMillis() / Math.max(1, testsRun);
+        double alpha = properties.getCost().getSmoothing();
+        perTestMillis.asMap().merge(new TaskKey(request.getTaskId(), request.getLanguage()), observed,
+                (previous, current) -> previous + alpha * (current - previous));
+    }
+
+    private double perTest(SolutionExecRequest request) {
+        if (request.getTaskId() != null) {
+            Double observed = perTestMillis.getIfPresent(new TaskKey(request.getTaskId(), request.getLanguage()));
+            if (observed != null) {
+                return observed;
+            }
+        }
+        AdmissionProperties.Cost cost = properties.getCost();
+        Duration byLanguage = request.getLanguage() == null ? null : cost.getDefaultPerTest().get(request.getLanguage());
+        return (byLanguage != null ? byLanguage : cost.getFallbackPerTest()).toMillis();
+    }
+
+    private int testCount(SolutionExecRequest request) {
+        return request.getTests() == null ? 1 : Math.max(1, request.getTests().size());
+    }
+
+    private record TaskKey(UUID taskId, Language language) {
+    }
+}
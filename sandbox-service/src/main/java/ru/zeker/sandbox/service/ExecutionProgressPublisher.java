@@ -0,0 +1,46 @@
+package ru.zeker.sandbox.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.zeker.common.dto.kafka.solution.SolutionExecProgress;
+import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
+import ru.zeker.common.dto.kafka.solution.TestResult;
+
+/**
+ * Публикует результаты тестов в solution.exec.progress по мере их завершения.
+ * События только информируют пользователя: ошибка публикации не влияет на выполнение и итоговый результат
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExecutionProgressPublisher {
+
+    private final KafkaProducer kafkaProducer;
+
+    @Value("${sandbox.progress.enabled:true}")
+    private boolean enabled;
+
+    public void testFinished(SolutionExecRequest request, int testIndex, int testCount, TestResult testResult) {
+        // Перепроверку пользователь не наблюдает: результат нужен только заданию перепроверки
+        if (!enabled || request.getRejudgeJobId() != null) {
+            return;
+        }
+        SolutionExecProgress progress = SolutionExecProgress.builder()
+                .solutionId(request.getSolutionId())
+                .testIndex(testIndex)
+                .testCount(testCount)
+                .testResult(testResult)
+                .build();
+        try {
+            kafkaProducer.sendProgressEvent(progress).whenComplete((result, error) -> {
+                if (error != null) {
+                    log.warn("Failed to publish progress of solution {}: {}", request.getSolutionId(), error.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Failed to publish progress of solution {}: {}", request.getSolutionId(), e.getMessage());
+        }
+    }
+}
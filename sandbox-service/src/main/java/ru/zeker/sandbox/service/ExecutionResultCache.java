@@ -0,0 +1,95 @@
+package ru.zeker.sandbox.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.sandbox.domain.dto.ExecutionReport;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Кэш результатов выполнения по контентному ключу решения.
+ * <p>
+ * Первый уровень - локальный Caffeine, второй (опционально) - Redis, общий для всех узлов sandbox-service.
+ * Кэшируются только детерминированные вердикты, ошибки инфраструктуры и таймауты не сохраняются.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExecutionResultCache {
+
+    private static final String KEY_PREFIX = "sandbox:execution:";
+
+    // Accepted, Wrong Answer, Compilation Error
+    private static final Set<Integer> CACHEABLE_STATUSES = Set.of(3, 4, 6);
+
+    private final Cache<String, ExecutionReport> executionResultLocalCache;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${sandbox.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sandbox.cache.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${sandbox.cache.ttl:PT1H}")
+    private Duration ttl;
+
+    public ExecutionReport get(String key) {
+        if (!enabled) {
+            return null;
+        }
+
+        ExecutionReport report = executionResultLocalCache.getIfPresent(key);
+        if (report != null || !redisEnabled) {
+            return report;
+        }
+
+        try {
+            String json = redisTemplate.opsForValue().get(KEY_PREFIX + key);
+            if (json == null) {
+                return null;
+            }
+            report = objectMapper.readValue(json, ExecutionReport.class);
+            executionResultLocalCache.put(key, report);
+            return report;
+        } catch (Exception e) {
+            // Redis - необязательный уровень, при его недоступности просто выполняем решение
+            log.warn("Failed to read execution result from Redis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public void put(String key, ExecutionReport report) {
+        if (!enabled || !isCacheable(report.getResponse())) {
+            return;
+        }
+
+        executionResultLocalCache.put(key, report);
+        if (!redisEnabled) {
+            return;
+        }
+
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + key, objectMapper.writeValueAsString(report), ttl);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize execution result: {}", e.getMessage());
+        } catch (Exception e) {
+            log.warn("Failed to write execution result to Redis: {}", e.getMessage());
+        }
+    }
+
+    private boolean isCacheable(SubmissionResponse response) {
+        return response != null
+                && response.getStatus() != null
+                && CACHEABLE_STATUSES.contains(response.getStatus().getId());
+    }
+}
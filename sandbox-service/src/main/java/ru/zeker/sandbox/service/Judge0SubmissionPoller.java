@@ -0,0 +1,216 @@
+package ru.zeker.sandbox.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.sandbox.client.Judge0Endpoint;
+import ru.zeker.sandbox.client.Judge0Operation;
+import ru.zeker.sandbox.exception.CodeExecutionException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Таблица отправленных в Judge0 сабмишенов (wait=false), ожидающих результата.
+ * <p>
+ * Вместо удержания соединения на каждый запуск планировщик опрашивает
+ * GET /submissions/batch пачками токенов и завершает futures по мере готовности.
+ * При включённых callback'ах результаты приходят PUT-запросом от Judge0,
+ * а опрос остаётся только страховкой для потерянных уведомлений.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class Judge0SubmissionPoller {
+
+    private static final String FIELDS = "token,stdout,stderr,compile_output,message,status,time,memory";
+
+    private static final int STATUS_IN_QUEUE = 1;
+    private static final int STATUS_PROCESSING = 2;
+
+    private final ExecutorService virtualThead;
+
+    private final Map<String, PendingSubmission> pending = new ConcurrentHashMap<>();
+
+    // GET /submissions/batch ограничен тем же лимитом, что и POST
+    @Value("${judge0.polling.max-tokens:20}")
+    private int maxTokensPerRequest;
+
+    // Отсчитывается с момента, когда Judge0 взял сабмишен в работу (PROCESSING): ожидание в очереди не в счёт
+    @Value("${judge0.polling.timeout-ms:30000}")
+    private long timeoutMs;
+
+    // Страховка для сабмишенов, так и не взятых в работу (потеряны Judge0 или очередь стоит)
+    @Value("${judge0.polling.queue-timeout-ms:300000}")
+    private long queueTimeoutMs;
+
+    @Value("${judge0.callback.enabled:false}")
+    private boolean callbackEnabled;
+
+    // Через сколько без callback'а токен начинает опрашиваться
+    @Value("${judge0.callback.fallback-after-ms:5000}")
+    private long callbackFallbackAfterMs;
+
+    /**
+     * Регистрирует токен в таблице ожидания
+     *
+     * @param endpoint   узел Judge0, выдавший токен: опрашивать токен можно только на нём
+     * @param token      токен сабмишена, полученный от Judge0
+     * @param solutionId идентификатор решения, которому принадлежит сабмишен
+     * @return future, который завершится результатом выполнения
+     */
+    public CompletableFuture<SubmissionResponse> track(Judge0Endpoint endpoint, String token, String solutionId) {
+        PendingSubmission submission = new PendingSubmission(endpoint, solutionId, System.currentTimeMillis());
+        pending.put(token, submission);
+        return submission.future();
+    }
+
+    /**
+     * Принимает результат, присланный Judge0 на callback_url
+     *
+     * @param solutionId идентификатор решения из callback_url
+     * @param response   результат выполнения сабмишена
+     * @return false, если токен неизвестен или принадлежит другому решению
+     */
+    public boolean acceptCallback(String solutionId, SubmissionResponse response) {
+        PendingSubmission submission = pending.get(response.getToken());
+        if (submission == null || !submission.solutionId().equals(solutionId) || isInProgress(response)) {
+            return false;
+        }
+        complete(response);
+        return true;
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${judge0.polling.interval-ms:300}")
+    public void poll() {
+        // Ожидание отменено вызывающей стороной (fail-fast): результат больше не нужен
+        pending.values().removeIf(submission -> submission.future().isDone());
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long pollBefore = System.currentTimeMillis() - (callbackEnabled ? callbackFallbackAfterMs : 0);
+        Map<Judge0Endpoint, List<String>> tokensByEndpoint = new HashMap<>();
+        pending.forEach((token, submission) -> {
+            if (submission.createdAt() <= pollBefore) {
+                tokensByEndpoint.computeIfAbsent(submission.endpoint(), endpoint -> new ArrayList<>()).add(token);
+            }
+        });
+        // Узлы опрашиваются параллельно: медленный узел не задерживает опрос остальных
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        tokensByEndpoint.forEach((endpoint, tokens) -> {
+            for (int from = 0; from < tokens.size(); from += maxTokensPerRequest) {
+                List<String> chunk = tokens.subList(from, Math.min(from + maxTokensPerRequest, tokens.size()));
+                requests.add(CompletableFuture.runAsync(() -> poll(endpoint, chunk), virtualThead));
+            }
+        });
+        CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+
+        expireStale();
+    }
+
+    private void poll(Judge0Endpoint endpoint, List<String> tokens) {
+        try {
+            List<SubmissionResponse> responses = endpoint
+                    .call(Judge0Operation.POLL, client -> client.getSubmissions(String.join(",", tokens), true, FIELDS))
+                    .getSubmissions();
+            long now = System.currentTimeMillis();
+            for (SubmissionResponse response : responses) {
+                if (!isInProgress(response)) {
+                    complete(response);
+                } else if (!isQueued(response)) {
+                    PendingSubmission submission = pending.get(response.getToken());
+                    if (submission != null) {
+                        submission.markProcessing(now);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Не валим остальные пачки: токены останутся в таблице до следующего тика или таймаута
+            log.warn("Failed to poll {} Judge0 submissions on {}: {}", tokens.size(), endpoint.getUrl(), e.getMessage());
+        }
+    }
+
+    private void complete(SubmissionResponse response) {
+        PendingSubmission submission = pending.remove(response.getToken());
+        if (submission != null) {
+            // Дальнейшая обработка результата не должна занимать поток планировщика
+            virtualThead.execute(() -> submission.future().complete(response));
+        }
+    }
+
+    private void expireStale() {
+        long now = System.currentTimeMillis();
+        pending.forEach((token, submission) -> {
+            if (submission.isExpired(now, timeoutMs, queueTimeoutMs) && pending.remove(token, submission)) {
+                log.warn("Judge0 submission {} did not complete in time", token);
+                submission.future().completeExceptionally(
+                        new CodeExecutionException("Execution did not complete in time"));
+            }
+        });
+    }
+
+    private boolean isInProgress(SubmissionResponse response) {
+        return response.getStatus() == null || response.getStatus().getId() <= STATUS_PROCESSING;
+    }
+
+    private boolean isQueued(SubmissionResponse response) {
+        return response.getStatus() == null || response.getStatus().getId() == STATUS_IN_QUEUE;
+    }
+
+    private static final class PendingSubmission {
+        private final CompletableFuture<SubmissionResponse> future = new CompletableFuture<>();
+        private final Judge0Endpoint endpoint;
+        private final String solutionId;
+        private final long createdAt;
+        // 0 - Judge0 ещё не брал сабмишен в работу (или статус не опрашивался)
+        private volatile long processingSince;
+
+        private PendingSubmission(Judge0Endpoint endpoint, String solutionId, long createdAt) {
+            this.endpoint = endpoint;
+            this.solutionId = solutionId;
+            this.createdAt = createdAt;
+        }
+
+        CompletableFuture<SubmissionResponse> future() {
+            return future;
+        }
+
+        Judge0Endpoint endpoint() {
+            return endpoint;
+        }
+
+        String solutionId() {
+            return solutionId;
+        }
+
+        long createdAt() {
+            return createdAt;
+        }
+
+        void markProcessing(long now) {
+            if (processingSince == 0) {
+                processingSince = now;
+            }
+        }
+
+        boolean isExpired(long now, long timeoutMs, long queueTimeoutMs) {
+            long processingStart = processingSince;
+            return processingStart > 0
+                    ? now - processingStart > timeoutMs
+                    : now - createdAt > queueTimeoutMs;
+        }
+    }
+}
@@ -2,18 +2,31 @@ package ru.zeker.sandbox.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
+import ru.zeker.common.dto.kafka.solution.SolutionExecProgress;
 import ru.zeker.common.dto.kafka.solution.SolutionExecResult;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @RequiredArgsConstructor
 @Validated
 public class KafkaProducer {
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
-    public void sendEmailEvent(SolutionExecResult message) {
-        kafkaTemplate.send("solution.exec.result", message.getSolutionId(), message);
+    /**
+     * Результаты ключуются по пользователю: вердикты одного пользователя обновляют одни и те же строки
+     * прогресса и поэтому обрабатываются solution-service последовательно, разные пользователи - параллельно
+     */
+    public CompletableFuture<SendResult<String, Object>> sendEmailEvent(SolutionExecResult message) {
+        String key = message.getUserId() != null ? message.getUserId().toString() : message.getSolutionId();
+        return kafkaTemplate.send("solution.exec.result", key, message);
+    }
+
+    public CompletableFuture<SendResult<String, Object>> sendProgressEvent(SolutionExecProgress message) {
+        return kafkaTemplate.send("solution.exec.progress", message.getSolutionId(), message);
     }
 
 }
@@ -0,0 +1,102 @@
+package ru.zeker.sandbox.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
+import ru.zeker.common.dto.kafka.solution.TestResult;
+import ru.zeker.common.dto.solution.Language;
+import ru.zeker.sandbox.config.ExecutionLimitProperties;
+import ru.zeker.sandbox.domain.dto.ExecutionLimits;
+import ru.zeker.sandbox.domain.dto.ExecutionReport;
+import ru.zeker.sandbox.util.QuantileSketch;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Статистика времени теста принятых решений по задаче и языку.
+ * <p>
+ * Лимиты, от которых зависит вердикт (процессорное время и память), всегда максимальные: статистика
+ * у каждого экземпляра своя и меняется со временем, а одно и то же решение должно получать один вердикт
+ * на любом экземпляре и из кэша результатов. Статистика только раньше прерывает зациклившийся запуск
+ * по реальному времени - для принятых решений этот лимит с большим запасом
+ */
+@Slf4j
+@Service
+public class RuntimeStatistics {
+
+    private static final int STATUS_ACCEPTED = 3;
+
+    private final ExecutionLimitProperties properties;
+    private final Cache<TaskKey, QuantileSketch> runtimes;
+
+    public RuntimeStatistics(ExecutionLimitProperties properties) {
+        this.properties = properties;
+        this.runtimes = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxTasks())
+                .build();
+    }
+
+    /**
+     * Учитывает время каждого теста принятого решения
+     */
+    public void record(SolutionExecRequest request, ExecutionReport report) {
+        SubmissionResponse verdict = report.getResponse();
+        if (request.getTaskId() == null || verdict == null || verdict.getStatus() == null
+                || verdict.getStatus().getId() != STATUS_ACCEPTED || report.getTestResults() == null) {
+            return;
+        }
+        QuantileSketch timeMs = runtimes.get(new TaskKey(request.getTaskId(), request.getLanguage()),
+                key -> new QuantileSketch(properties.getRelativeAccuracy(), properties.getDecayAfter()));
+        synchronized (timeMs) {
+            for (TestResult testResult : report.getTestResults()) {
+                timeMs.add(testResult.getTimeMs());
+            }
+        }
+    }
+
+    /**
+     * Лимиты для запуска, выполняющего runs тестов подряд в одном процессе
+     *
+     * @return null, если лимиты отключены
+     */
+    public ExecutionLimits limits(SolutionExecRequest request, int runs) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        long cpuMs = properties.getMaxCpuTime().toMillis();
+        long wallMs = (long) (cpuMs * properties.getWallTimeMultiplier());
+
+        QuantileSketch timeMs = request.getTaskId() == null
+                ? null
+                : runtimes.getIfPresent(new TaskKey(request.getTaskId(), request.getLanguage()));
+        if (timeMs != null) {
+            synchronized (timeMs) {
+                if (timeMs.count() >= properties.getMinSamples()) {
+                    double p = timeMs.quantile(properties.getQuantile());
+                    long adaptive = (long) (p * properties.getTimeMultiplier()) + properties.getTimeHeadroom().toMillis();
+                    wallMs = clamp((long) (adaptive * properties.getWallTimeMultiplier()),
+                            properties.getMinWallTime().toMillis(), wallMs);
+                }
+            }
+        }
+
+        // Тесты в одном процессе (harness) делят общий лимит, умноженный на их число
+        int tests = Math.max(1, runs);
+        return ExecutionLimits.builder()
+                .cpuTime(Duration.ofMillis(cpuMs * tests))
+                .wallTime(Duration.ofMillis(wallMs * tests))
+                .memoryKb(properties.getMaxMemoryMb() * 1024)
+                .build();
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private record TaskKey(UUID taskId, Language language) {
+    }
+}
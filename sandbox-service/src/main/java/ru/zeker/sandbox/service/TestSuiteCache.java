@@ -0,0 +1,123 @@
+package ru.zeker.sandbox.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
+import ru.zeker.common.dto.task.TestCase;
+import ru.zeker.common.dto.task.response.TestSuiteResponse;
+import ru.zeker.sandbox.client.TaskClient;
+import ru.zeker.sandbox.domain.dto.Payload;
+import ru.zeker.sandbox.exception.CodeExecutionException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Наборы тестов по taskId и версии. Сообщения solution.exec.request несут только ссылку на набор,
+ * сами тесты загружаются из task-service при первом обращении к версии.
+ * Версия - хэш содержимого, поэтому закэшированный набор никогда не устаревает
+ */
+@Slf4j
+@Service
+public class TestSuiteCache {
+
+    private final TaskClient taskClient;
+    private final Cache<SuiteKey, TestSuite> suites;
+
+    public TestSuiteCache(TaskClient taskClient,
+                          @Value("${sandbox.test-suites.max-size-mb:256}") long maxSizeMb,
+                          @Value("${sandbox.test-suites.expire-after-access:PT1H}") Duration expireAfterAccess) {
+        this.taskClient = taskClient;
+        this.suites = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024 * 1024)
+                .weigher((SuiteKey key, TestSuite suite) -> suite.weight())
+                .expireAfterAccess(expireAfterAccess)
+                .build();
+    }
+
+    /**
+     * Подставляет в запрос тесты по ссылке; запросы с тестами внутри сообщения не меняются
+     */
+    public void resolve(SolutionExecRequest request) {
+        if (request.getTests() != null) {
+            return;
+        }
+        if (request.getTaskId() == null || request.getTestsVersion() == null) {
+            throw new CodeExecutionException("Execution request has neither tests nor a test suite reference");
+        }
+        load(request);
+    }
+
+    /**
+     * Входы тестов запроса с переводом строки в конце, в том же порядке. Для набора из кэша
+     * они подготовлены один раз на версию, и base64 каждого входа тоже считается один раз
+     */
+    public List<Payload> inputs(SolutionExecRequest request) {
+        if (request.getTaskId() != null && request.getTestsVersion() != null) {
+            TestSuite suite = suites.getIfPresent(new SuiteKey(request.getTaskId(), request.getTestsVersion()));
+            // Тот же список, что подставил resolve: входы соответствуют тестам запроса
+            if (suite != null && suite.tests() == request.getTests()) {
+                return suite.inputs();
+            }
+        }
+        return prepare(request.getTests());
+    }
+
+    // Подставляет тесты и версию загруженного набора: по ней строится отпечаток решения для кэша результатов.
+    // Загрузка одной версии выполняется один раз, параллельные запросы ждут её результата
+    private void load(SolutionExecRequest request) {
+        UUID taskId = request.getTaskId();
+        String version = request.getTestsVersion();
+        TestSuite suite = suites.get(new SuiteKey(taskId, version), this::fetch);
+        if (!Objects.equals(suite.version(), version)) {
+            // Тесты изменились после отправки решения: проверяем по актуальным
+            log.warn("Test suite of task {} changed: requested version {}, current {}", taskId, version, suite.version());
+            suites.asMap().putIfAbsent(new SuiteKey(taskId, suite.version()), suite);
+        }
+        request.setTests(suite.tests());
+        request.setTestsVersion(suite.version());
+    }
+
+    private TestSuite fetch(SuiteKey key) {
+        TestSuiteResponse suite = taskClient.getTestSuite(key.taskId());
+        if (suite == null || suite.getTests() == null) {
+            throw new CodeExecutionException("Test suite of task " + key.taskId() + " is not available");
+        }
+        log.debug("Loaded test suite of task {} version {} ({} tests)", key.taskId(), suite.getVersion(), suite.getTests().size());
+        return new TestSuite(suite.getVersion(), suite.getTests(), prepare(suite.getTests()));
+    }
+
+    private static List<Payload> prepare(List<TestCase> tests) {
+        return tests.stream()
+                .map(test -> Payload.of(withTrailingNewline(Objects.requireNonNullElse(test.getInput(), ""))))
+                .toList();
+    }
+
+    // Нормализуем переносы строк
+    private static String withTrailingNewline(String value) {
+        return value.endsWith("\n") ? value : value + "\n";
+    }
+
+    private record SuiteKey(UUID taskId, String version) {
+    }
+
+    private record TestSuite(String version, List<TestCase> tests, List<Payload> inputs) {
+
+        // Входы учитываются вместе с base64, даже если он ещё не посчитан
+        int weight() {
+            long bytes = 0;
+            for (TestCase test : tests) {
+                bytes += (long) Objects.requireNonNullElse(test.getOutput(), "").length() * Character.BYTES;
+            }
+            for (Payload input : inputs) {
+                bytes += input.weight();
+            }
+            return (int) Math.min(Integer.MAX_VALUE, bytes);
+        }
+    }
+}
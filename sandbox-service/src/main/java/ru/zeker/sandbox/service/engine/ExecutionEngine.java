@@ -0,0 +1,33 @@
+package ru.zeker.sandbox.service.engine;
+
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.sandbox.domain.dto.ExecutionTask;
+import ru.zeker.sandbox.domain.model.enums.EngineType;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Движок, выполняющий код решения.
+ * <p>
+ * Результат возвращается в формате Judge0: stdout/stderr в base64, статусы по кодам Judge0
+ * (3 - Accepted, 5 - Time Limit Exceeded, 11 - Runtime Error и т.д.), время в секундах
+ */
+public interface ExecutionEngine {
+
+    EngineType type();
+
+    /**
+     * Запускает одну программу. Отмена future освобождает движок от ожидания результата
+     */
+    CompletableFuture<SubmissionResponse> submit(ExecutionTask task);
+
+    /**
+     * Запускает несколько программ, результаты в порядке задач
+     */
+    default List<CompletableFuture<SubmissionResponse>> submitAll(List<ExecutionTask> tasks) {
+        return tasks.stream()
+                .map(this::submit)
+                .toList();
+    }
+}
@@ -0,0 +1,34 @@
+package ru.zeker.sandbox.service.engine;
+
+import org.springframework.stereotype.Component;
+import ru.zeker.common.dto.solution.Language;
+import ru.zeker.sandbox.config.ExecutionEngineProperties;
+import ru.zeker.sandbox.domain.model.enums.EngineType;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Выбор движка выполнения по языку решения (sandbox.engine.languages)
+ */
+@Component
+public class ExecutionEngineRegistry {
+
+    private final ExecutionEngineProperties properties;
+    private final Map<EngineType, ExecutionEngine> engines = new EnumMap<>(EngineType.class);
+
+    public ExecutionEngineRegistry(ExecutionEngineProperties properties, List<ExecutionEngine> engines) {
+        this.properties = properties;
+        engines.forEach(engine -> this.engines.put(engine.type(), engine));
+    }
+
+    public ExecutionEngine forLanguage(Language language) {
+        EngineType type = properties.getLanguages().getOrDefault(language, properties.getDefaultEngine());
+        ExecutionEngine engine = engines.get(type);
+        if (engine == null) {
+            throw new IllegalStateException("Execution engine " + type + " is not available");
+        }
+        return engine;
+    }
+}
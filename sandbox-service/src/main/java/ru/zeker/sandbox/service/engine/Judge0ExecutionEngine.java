@@ -0,0 +1,153 @@
+package ru.zeker.sandbox.service.engine;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.zeker.common.dto.judge0.request.BatchSubmissionRequest;
+import ru.zeker.common.dto.judge0.request.SubmissionRequest;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.common.dto.judge0.response.SubmissionToken;
+import ru.zeker.sandbox.client.Judge0Endpoint;
+import ru.zeker.sandbox.client.Judge0EndpointPool;
+import ru.zeker.sandbox.client.Judge0EndpointPool.Routed;
+import ru.zeker.sandbox.client.Judge0Operation;
+import ru.zeker.sandbox.domain.dto.ExecutionLimits;
+import ru.zeker.sandbox.domain.dto.ExecutionTask;
+import ru.zeker.sandbox.domain.model.enums.EngineType;
+import ru.zeker.sandbox.exception.CodeExecutionException;
+import ru.zeker.sandbox.service.Judge0SubmissionPoller;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class Judge0ExecutionEngine implements ExecutionEngine {
+
+    private final Judge0EndpointPool endpointPool;
+    private final Judge0SubmissionPoller submissionPoller;
+    private final ExecutorService virtualThead;
+
+    // Отправка с wait=false и ожиданием результата через опрос токенов
+    @Value("${sandbox.execution.async:false}")
+    private boolean async;
+
+    @Value("${judge0.callback.enabled:false}")
+    private boolean callbackEnabled;
+
+    // Адрес sandbox-service, доступный со стороны Judge0
+    @Value("${judge0.callback.base-url:http://sandbox-service:8085}")
+    private String callbackBaseUrl;
+
+    // Judge0 по умолчанию принимает не больше 20 сабмишенов в одном batch-запросе
+    @Value("${judge0.batch.max-size:20}")
+    private int batchMaxSize;
+
+    @Override
+    public EngineType type() {
+        return EngineType.JUDGE0;
+    }
+
+    /**
+     * Без async блокирующий вызов с wait=true уходит на виртуальный поток.
+     * Узел Judge0 занят сабмишеном, пока не завершится возвращённый future.
+     * Выбор узла, хеджирование и повторы - в {@link Judge0EndpointPool#execute}
+     */
+    @Override
+    public CompletableFuture<SubmissionResponse> submit(ExecutionTask task) {
+        SubmissionRequest sub = toSubmission(task);
+
+        if (!async) {
+            sub.setCallbackUrl(null);
+            return CompletableFuture.supplyAsync(() -> {
+                Routed<SubmissionResponse> routed =
+                        endpointPool.execute(Judge0Operation.SUBMIT_WAIT, 1, client -> client.submitCode(sub, true, true));
+                routed.endpoint().release(1);
+                return routed.response();
+            }, virtualThead);
+        }
+
+        Routed<SubmissionResponse> submitted =
+                endpointPool.execute(Judge0Operation.SUBMIT, 1, client -> client.submitCode(sub, true, false));
+        Judge0Endpoint endpoint = submitted.endpoint();
+        if (StringUtils.isBlank(submitted.response().getToken())) {
+            endpoint.release(1);
+            throw new CodeExecutionException("Judge0 did not return submission token");
+        }
+        // Отдаём исходный future, а не производный: его отмена должна доходить до поллера
+        CompletableFuture<SubmissionResponse> result =
+                submissionPoller.track(endpoint, submitted.response().getToken(), task.getSolutionId());
+        result.whenComplete((response, error) -> endpoint.release(1));
+        return result;
+    }
+
+    /**
+     * Отправляет задачи пачками через /submissions/batch, результаты ждёт через опрос токенов
+     */
+    @Override
+    public List<CompletableFuture<SubmissionResponse>> submitAll(List<ExecutionTask> tasks) {
+        List<CompletableFuture<SubmissionResponse>> submissions = new ArrayList<>(tasks.size());
+        try {
+            for (int from = 0; from < tasks.size(); from += batchMaxSize) {
+                List<ExecutionTask> chunk = tasks.subList(from, Math.min(from + batchMaxSize, tasks.size()));
+                submissions.addAll(submitChunk(chunk));
+            }
+        } catch (RuntimeException e) {
+            // Результаты уже отправленных пачек не понадобятся: снимаем их с опроса и освобождаем узлы
+            submissions.forEach(submission -> submission.cancel(false));
+            throw e;
+        }
+        return submissions;
+    }
+
+    private List<CompletableFuture<SubmissionResponse>> submitChunk(List<ExecutionTask> chunk) {
+        BatchSubmissionRequest batch = new BatchSubmissionRequest(chunk.stream().map(this::toSubmission).toList());
+
+        Routed<List<SubmissionToken>> routed =
+                endpointPool.execute(Judge0Operation.SUBMIT_BATCH, chunk.size(), client -> client.submitBatch(batch, true));
+        Judge0Endpoint endpoint = routed.endpoint();
+        List<SubmissionToken> tokens = routed.response();
+        if (tokens.size() != chunk.size() || tokens.stream().anyMatch(t -> StringUtils.isBlank(t.getToken()))) {
+            endpoint.release(chunk.size());
+            throw new CodeExecutionException("Judge0 rejected batch submission: " + tokens);
+        }
+        List<CompletableFuture<SubmissionResponse>> submissions = new ArrayList<>(chunk.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            CompletableFuture<SubmissionResponse> submission =
+                    submissionPoller.track(endpoint, tokens.get(i).getToken(), chunk.get(i).getSolutionId());
+            submission.whenComplete((response, error) -> endpoint.release(1));
+            submissions.add(submission);
+        }
+        return submissions;
+    }
+
+    private SubmissionRequest toSubmission(ExecutionTask task) {
+        SubmissionRequest submission = SubmissionRequest.builder()
+                .sourceCode(task.getSourceCode().base64())
+                .languageId(task.getLanguage().getCode())
+                .stdin(task.getStdin().base64())
+                .callbackUrl(callbackUrl(task))
+                .build();
+        ExecutionLimits limits = task.getLimits();
+        if (limits != null) {
+            submission.setCpuTimeLimit(toSeconds(limits.getCpuTime()));
+            submission.setWallTimeLimit(toSeconds(limits.getWallTime()));
+            submission.setMemoryLimit(limits.getMemoryKb());
+        }
+        return submission;
+    }
+
+    private Float toSeconds(Duration duration) {
+        return duration.toMillis() / 1000f;
+    }
+
+    private String callbackUrl(ExecutionTask task) {
+        return callbackEnabled ? callbackBaseUrl + "/judge0/callbacks/" + task.getSolutionId() : null;
+    }
+}
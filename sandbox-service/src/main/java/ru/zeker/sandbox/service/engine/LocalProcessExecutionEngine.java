@@ -0,0 +1,217 @@
+package ru.zeker.sandbox.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.zeker.common.dto.judge0.response.Status;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.sandbox.config.ExecutionEngineProperties;
+import ru.zeker.sandbox.domain.dto.ExecutionLimits;
+import ru.zeker.sandbox.domain.dto.ExecutionTask;
+import ru.zeker.sandbox.domain.model.enums.EngineType;
+import ru.zeker.sandbox.exception.CodeExecutionException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Выполняет решения дочерними процессами на хосте, без HTTP-похода в Judge0.
+ * <p>
+ * Число одновременно запущенных процессов ограничено пулом. Каждый процесс стартует
+ * в отдельном временном каталоге с пустым окружением и лимитами ulimit на CPU,
+ * память, размер файлов и число процессов; по реальному времени процесс убивается
+ * вместе с запущенными им процессами с вердиктом TLE.
+ * Это не замена изоляции Judge0: движок предназначен для доверенных окружений,
+ * локальной разработки и нагрузочных прогонов без внешних сервисов
+ */
+@Slf4j
+@Service
+public class LocalProcessExecutionEngine implements ExecutionEngine {
+
+    private static final int STATUS_ACCEPTED = 3;
+    private static final int STATUS_TIME_LIMIT_EXCEEDED = 5;
+    private static final int STATUS_RUNTIME_ERROR = 11;
+    private static final int STATUS_INTERNAL_ERROR = 13;
+
+    private static final int EXIT_LIMITS_FAILED = 125;
+    // 128 + SIGXCPU: исчерпан лимит процессорного времени ulimit -t
+    private static final int EXIT_CPU_LIMIT = 152;
+
+    // Лимиты выставляются оболочкой перед exec интерпретатора: $1 - CPU-секунды, $2 - память в КБ,
+    // $3 - блоки файла, $4 - число процессов (в bash это ulimit -u, в dash - ulimit -p)
+    private static final String LIMITS_SCRIPT = """
+            ulimit -t "$1" || exit 125
+            [ "$2" = "0" ] || ulimit -v "$2" || exit 125
+            ulimit -f "$3" || exit 125
+            [ "$4" = "0" ] || ulimit -u "$4" 2>/dev/null || ulimit -p "$4" || exit 125
+            shift 4
+            exec "$@"
+            """;
+
+    private final ExecutionEngineProperties properties;
+    private final ExecutorService virtualThead;
+
+    private final Semaphore pool;
+
+    public LocalProcessExecutionEngine(ExecutionEngineProperties properties, ExecutorService virtualThead) {
+        this.properties = properties;
+        this.virtualThead = virtualThead;
+        this.pool = new Semaphore(Math.max(1, properties.getLocal().getPoolSize()));
+    }
+
+    @Override
+    public EngineType type() {
+        return EngineType.LOCAL;
+    }
+
+    @Override
+    public CompletableFuture<SubmissionResponse> submit(ExecutionTask task) {
+        CompletableFuture<SubmissionResponse> result = new CompletableFuture<>();
+        virtualThead.execute(() -> {
+            try {
+                pool.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+                return;
+            }
+            try {
+                // Ожидание могли отменить, пока задача стояла в очереди пула
+                if (!result.isDone()) {
+                    result.complete(run(task, result));
+                }
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            } finally {
+                pool.release();
+            }
+        });
+        return result;
+    }
+
+    private SubmissionResponse run(ExecutionTask task, CompletableFuture<SubmissionResponse> result)
+            throws IOException, InterruptedException {
+        ExecutionEngineProperties.Local local = properties.getLocal();
+        ExecutionEngineProperties.Interpreter interpreter = local.getInterpreters().get(task.getLanguage());
+        if (interpreter == null) {
+            throw new CodeExecutionException("No local interpreter configured for " + task.getLanguage());
+        }
+
+        Path workDir = Files.createTempDirectory("sandbox-");
+        try {
+            Path source = workDir.resolve(interpreter.getFileName());
+            Path stdin = workDir.resolve("stdin");
+            Path stdout = workDir.resolve("stdout");
+            Path stderr = workDir.resolve("stderr");
+            Files.writeString(source, task.getSourceCode().text());
+            Files.writeString(stdin, task.getStdin().text());
+
+            // Лимиты задачи сужают лимиты движка, но не расширяют их
+            ExecutionLimits limits = task.getLimits();
+            long timeLimitMs = local.getTimeLimit().toMillis();
+            long cpuLimitMs = timeLimitMs;
+            long memoryKb = interpreter.isLimitAddressSpace() ? local.getMemoryLimitMb() * 1024L : 0;
+            if (limits != null) {
+                timeLimitMs = Math.min(timeLimitMs, limits.getWallTime().toMillis());
+                cpuLimitMs = Math.min(cpuLimitMs, limits.getCpuTime().toMillis());
+                if (memoryKb > 0) {
+                    memoryKb = Math.min(memoryKb, limits.getMemoryKb());
+                }
+            }
+            long cpuSeconds = Math.max(1, (cpuLimitMs + 999) / 1000);
+            long fileBlocks = local.getMaxOutputBytes() / 512 + 1;
+
+            List<String> command = new ArrayList<>(List.of("/bin/sh", "-c", LIMITS_SCRIPT, "sandbox",
+                    String.valueOf(cpuSeconds), String.valueOf(memoryKb), String.valueOf(fileBlocks),
+                    String.valueOf(local.getMaxProcesses())));
+            command.addAll(interpreter.getCommand());
+            command.add(source.toString());
+
+            ProcessBuilder builder = new ProcessBuilder(command)
+                    .directory(workDir.toFile())
+                    .redirectInput(stdin.toFile())
+                    .redirectOutput(stdout.toFile())
+                    .redirectError(stderr.toFile());
+            builder.environment().clear();
+            builder.environment().put("PATH", System.getenv().getOrDefault("PATH", "/usr/local/bin:/usr/bin:/bin"));
+            builder.environment().put("HOME", workDir.toString());
+
+            long startedAt = System.nanoTime();
+            Process process = builder.start();
+            // Отмена ожидания (fail-fast) убивает процесс, а не только перестаёт его ждать
+            result.whenComplete((response, error) -> {
+                if (result.isCancelled()) {
+                    destroyTree(process);
+                }
+            });
+
+            boolean finished = process.waitFor(timeLimitMs, TimeUnit.MILLISECONDS);
+            if (!finished) {
+                destroyTree(process);
+                process.waitFor();
+            }
+            float seconds = (System.nanoTime() - startedAt) / 1_000_000_000f;
+
+            SubmissionResponse.SubmissionResponseBuilder response = SubmissionResponse.builder()
+                    .stdout(readEncoded(stdout, local.getMaxOutputBytes()))
+                    .stderr(readEncoded(stderr, local.getMaxOutputBytes()))
+                    .time(seconds);
+
+            if (!finished || process.exitValue() == EXIT_CPU_LIMIT) {
+                return response.status(status(STATUS_TIME_LIMIT_EXCEEDED, "Time Limit Exceeded")).build();
+            }
+            return switch (process.exitValue()) {
+                case 0 -> response.status(status(STATUS_ACCEPTED, "Accepted")).build();
+                case EXIT_LIMITS_FAILED -> response.status(status(STATUS_INTERNAL_ERROR, "Internal Error"))
+                        .message("Failed to apply process limits")
+                        .build();
+                default -> response.status(status(STATUS_RUNTIME_ERROR, "Runtime Error (NZEC)"))
+                        .message("Exited with code " + process.exitValue())
+                        .build();
+            };
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Сначала потомки, пока они ещё числятся потомками: после смерти интерпретатора
+     * они переходят к init и по дереву процессов уже не находятся
+     */
+    private void destroyTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private Status status(int id, String description) {
+        return Status.builder()
+                .id(id)
+                .description(description)
+                .build();
+    }
+
+    private String readEncoded(Path file, int limit) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return Base64.getEncoder().encodeToString(in.readNBytes(limit));
+        }
+    }
+
+    private void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to clean up sandbox directory {}: {}", dir, e.getMessage());
+        }
+    }
+}
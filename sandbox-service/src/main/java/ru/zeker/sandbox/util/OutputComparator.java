@@ -0,0 +1,246 @@
+package ru.zeker.sandbox.util;
+
+import lombok.experimental.UtilityClass;
+import ru.zeker.common.dto.task.OutputCheckMode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Сравнение вывода решения с ожидаемым без построения промежуточных строк.
+ * <p>
+ * Вывод Judge0 (base64) декодируется потоково и читается посимвольно через буфер
+ * фиксированного размера, поэтому память на проверку не зависит от размера вывода
+ */
+@UtilityClass
+public class OutputComparator {
+
+    private static final int EOF = -1;
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Сравнивает вывод в base64 с ожидаемым. Если вывод не base64, он сравнивается как есть
+     *
+     * @param encodedActual вывод решения в base64
+     * @param expected      ожидаемый вывод
+     * @param mode          способ сравнения, null - EXACT
+     * @param tolerance     допустимая погрешность чисел для FLOAT_TOLERANCE
+     */
+    public static boolean matchesEncoded(String encodedActual, String expected, OutputCheckMode mode, double tolerance) {
+        if (encodedActual == null) {
+            return false;
+        }
+        try {
+            return matches(new Base64Cursor(encodedActual), new StringCursor(expected), mode, tolerance);
+        } catch (UncheckedIOException e) {
+            return matches(encodedActual, expected, mode, tolerance);
+        }
+    }
+
+    /**
+     * Сравнивает уже декодированный вывод с ожидаемым
+     */
+    public static boolean matches(String actual, String expected, OutputCheckMode mode, double tolerance) {
+        if (actual == null) {
+            return false;
+        }
+        return matches(new StringCursor(actual), new StringCursor(expected), mode, tolerance);
+    }
+
+    /**
+     * Первые maxChars символов вывода в base64 для отчёта по тесту
+     */
+    public static String preview(String encodedActual, int maxChars) {
+        if (encodedActual == null) {
+            return null;
+        }
+        StringBuilder preview = new StringBuilder(Math.min(maxChars, encodedActual.length()));
+        try {
+            Base64Cursor cursor = new Base64Cursor(encodedActual);
+            for (int c = cursor.next(); c != EOF && preview.length() < maxChars; c = cursor.next()) {
+                preview.append((char) c);
+            }
+            return preview.toString();
+        } catch (UncheckedIOException e) {
+            return encodedActual.substring(0, Math.min(maxChars, encodedActual.length()));
+        }
+    }
+
+    private static boolean matches(CharCursor actual, CharCursor expected, OutputCheckMode mode, double tolerance) {
+        return switch (mode == null ? OutputCheckMode.EXACT : mode) {
+            case EXACT -> exact(actual, expected);
+            case WHITESPACE -> tokens(actual, expected, false, tolerance);
+            case FLOAT_TOLERANCE -> tokens(actual, expected, true, tolerance);
+        };
+    }
+
+    // Эквивалент actual.stripTrailing().equals(expected.stripTrailing())
+    private static boolean exact(CharCursor actual, CharCursor expected) {
+        int a = actual.next();
+        int e = expected.next();
+        while (a == e && a != EOF) {
+            a = actual.next();
+            e = expected.next();
+        }
+        // После первого расхождения у обоих могут остаться только пробельные символы
+        return restIsWhitespace(a, actual) && restIsWhitespace(e, expected);
+    }
+
+    private static boolean restIsWhitespace(int c, CharCursor cursor) {
+        for (; c != EOF; c = cursor.next()) {
+            if (!Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean tokens(CharCursor actual, CharCursor expected, boolean numeric, double tolerance) {
+        // Буферы нужны только для сравнения чисел и растут до длины самого длинного токена
+        StringBuilder actualToken = numeric ? new StringBuilder() : null;
+        StringBuilder expectedToken = numeric ? new StringBuilder() : null;
+
+        int a = skipWhitespace(actual.next(), actual);
+        int e = skipWhitespace(expected.next(), expected);
+        while (a != EOF && e != EOF) {
+            boolean same = true;
+            if (numeric) {
+                actualToken.setLength(0);
+                expectedToken.setLength(0);
+            }
+            while (!isSeparator(a) || !isSeparator(e)) {
+                if (a != e) {
+                    same = false;
+                    if (!numeric) {
+                        return false;
+                    }
+                }
+                if (numeric) {
+                    if (!isSeparator(a)) actualToken.append((char) a);
+                    if (!isSeparator(e)) expectedToken.append((char) e);
+                }
+                if (!isSeparator(a)) a = actual.next();
+                if (!isSeparator(e)) e = expected.next();
+            }
+            if (!same && !numbersClose(actualToken, expectedToken, tolerance)) {
+                return false;
+            }
+            a = skipWhitespace(a, actual);
+            e = skipWhitespace(e, expected);
+        }
+        return a == EOF && e == EOF;
+    }
+
+    private static boolean numbersClose(CharSequence actual, CharSequence expected, double tolerance) {
+        try {
+            double a = Double.parseDouble(actual.toString());
+            double e = Double.parseDouble(expected.toString());
+            if (Double.isNaN(a) || Double.isNaN(e)) {
+                return false;
+            }
+            return a == e || Math.abs(a - e) <= tolerance * Math.max(1.0, Math.abs(e));
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    private static int skipWhitespace(int c, CharCursor cursor) {
+        while (c != EOF && Character.isWhitespace(c)) {
+            c = cursor.next();
+        }
+        return c;
+    }
+
+    private static boolean isSeparator(int c) {
+        return c == EOF || Character.isWhitespace(c);
+    }
+
+    private interface CharCursor {
+        /**
+         * Следующий символ или -1 в конце
+         */
+        int next();
+    }
+
+    private static final class StringCursor implements CharCursor {
+        private final String value;
+        private int position;
+
+        private StringCursor(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public int next() {
+            return position < value.length() ? value.charAt(position++) : EOF;
+        }
+    }
+
+    /**
+     * Декодирует base64 в UTF-8 на лету. MIME-декодер, как и прежняя очистка регуляркой,
+     * пропускает символы вне алфавита base64 (переводы строк и т.п.)
+     */
+    private static final class Base64Cursor implements CharCursor {
+        private final Reader reader;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        private Base64Cursor(String encoded) {
+            InputStream decoded = Base64.getMimeDecoder().wrap(new LatinInputStream(encoded));
+            this.reader = new InputStreamReader(decoded, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int next() {
+            if (position == limit) {
+                try {
+                    limit = reader.read(buffer, 0, buffer.length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return EOF;
+                }
+            }
+            return buffer[position++];
+        }
+    }
+
+    // Байты строки из ASCII-символов base64 без копирования в byte[]
+    private static final class LatinInputStream extends InputStream {
+        private final String value;
+        private int position;
+
+        private LatinInputStream(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public int read() {
+            return position < value.length() ? value.charAt(position++) & 0xFF : EOF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= value.length()) {
+                return EOF;
+            }
+            int count = Math.min(length, value.length() - position);
+            for (int i = 0; i < count; i++) {
+                bytes[offset + i] = (byte) value.charAt(position++);
+            }
+            return count;
+        }
+    }
+}
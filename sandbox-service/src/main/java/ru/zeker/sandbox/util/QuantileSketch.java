@@ -0,0 +1,99 @@
+package ru.zeker.sandbox.util;
+
+/**
+ * Квантильный скетч с относительной погрешностью по схеме DDSketch.
+ * <p>
+ * Значение x попадает в корзину ceil(log_gamma(x)), gamma = (1 + a) / (1 - a), поэтому
+ * любой квантиль оценивается с относительной погрешностью не больше a. Корзины хранятся
+ * только для наблюдавшегося диапазона значений. После maxCount значений все счётчики
+ * делятся пополам, так что старые замеры постепенно теряют вес.
+ * <p>
+ * Не потокобезопасен
+ */
+public class QuantileSketch {
+
+    // Значения меньше этого считаются нулём
+    private static final double MIN_VALUE = 1e-3;
+
+    private final double gamma;
+    private final double logGamma;
+    private final long maxCount;
+
+    private int[] counts = new int[0];
+    // Индекс корзины counts[0]
+    private int offset;
+    private long zeroCount;
+    private long count;
+
+    public QuantileSketch(double relativeAccuracy, long maxCount) {
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxCount = Math.max(2, maxCount);
+    }
+
+    public void add(double value) {
+        if (value < MIN_VALUE) {
+            zeroCount++;
+        } else {
+            int index = (int) Math.ceil(Math.log(value) / logGamma);
+            ensureCapacity(index);
+            counts[index - offset]++;
+        }
+        if (++count > maxCount) {
+            decay();
+        }
+    }
+
+    /**
+     * Оценка квантиля q в [0, 1]; без значений - 0
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        double rank = q * (count - 1);
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                // Середина корзины (gamma^(k-1), gamma^k] с точки зрения относительной погрешности
+                return 2 * Math.pow(gamma, i + offset) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, counts.length - 1 + offset) / (gamma + 1);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    private void ensureCapacity(int index) {
+        if (counts.length == 0) {
+            counts = new int[1];
+            offset = index;
+            return;
+        }
+        if (index < offset) {
+            int[] grown = new int[counts.length + (offset - index)];
+            System.arraycopy(counts, 0, grown, offset - index, counts.length);
+            counts = grown;
+            offset = index;
+        } else if (index >= offset + counts.length) {
+            int[] grown = new int[index - offset + 1];
+            System.arraycopy(counts, 0, grown, 0, counts.length);
+            counts = grown;
+        }
+    }
+
+    private void decay() {
+        zeroCount /= 2;
+        count = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] /= 2;
+            count += counts[i];
+        }
+    }
+}
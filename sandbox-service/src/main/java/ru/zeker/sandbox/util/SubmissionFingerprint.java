@@ -0,0 +1,67 @@
+package ru.zeker.sandbox.util;
+
+import lombok.experimental.UtilityClass;
+import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
+import ru.zeker.common.dto.task.OutputCheckMode;
+import ru.zeker.common.util.TestSuiteVersion;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Контентные хэши решений: одинаковый код на одном языке и одном наборе тестов
+ * даёт одинаковый отпечаток независимо от solutionId
+ */
+@UtilityClass
+public class SubmissionFingerprint {
+
+    private static final Pattern TRAILING_SPACES = Pattern.compile("[ \\t]+$", Pattern.MULTILINE);
+
+    /**
+     * Отпечаток решения: хэш от языка, нормализованного кода, хэша набора тестов и способа проверки
+     */
+    public static String of(SolutionExecRequest request) {
+        MessageDigest digest = sha256();
+        update(digest, request.getLanguage().name());
+        update(digest, normalizeCode(request.getCode()));
+        update(digest, testsVersion(request));
+        update(digest, Objects.requireNonNullElse(request.getCheckMode(), OutputCheckMode.EXACT).name());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Версия набора - уже хэш его содержимого; набор хэшируется только у старых сообщений с тестами внутри
+     */
+    private static String testsVersion(SolutionExecRequest request) {
+        return request.getTestsVersion() != null ? request.getTestsVersion() : TestSuiteVersion.of(request.getTests());
+    }
+
+    /**
+     * Убирает различия, не влияющие на выполнение: переводы строк CRLF,
+     * пробелы в конце строк и пустые строки в конце файла
+     */
+    public static String normalizeCode(String code) {
+        String unixLineEndings = code.replace("\r\n", "\n");
+        return TRAILING_SPACES.matcher(unixLineEndings).replaceAll("").stripTrailing();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // Длина перед значением, чтобы ("ab", "c") и ("a", "bc") давали разные хэши
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+// Обвязка HARNESS-режима: прогоняет решение на всех тестах в одном процессе.
+// stdin: строка-разделитель, затем вход каждого теста, завершённый строкой-разделителем.
+// stdout: для каждого теста строка "<разделитель> <OK|ERROR>", затем вывод решения.
+// Асинхронный код решения должен завершиться к закрытию stdin теста.
+const fs = require('fs');
+const util = require('util');
+const { Readable } = require('stream');
+
+const data = fs.readFileSync(0, 'utf-8');
+const boundary = data.slice(0, data.indexOf('\n'));
+const inputs = data.slice(boundary.length + 1).split(boundary + '\n').slice(0, -1);
+const solution = new Function('require', 'process', 'console', 'module', 'exports',
+    Buffer.from('{{SOURCE}}', 'base64').toString('utf-8'));
+
+let current = null;
+process.on('uncaughtException', error => {
+    if (current) {
+        current.status = 'ERROR';
+        process.stderr.write(String(error && error.stack || error) + '\n');
+    }
+});
+
+function sandboxFor(test) {
+    const stdin = Readable.from([test.input]);
+    stdin.fd = 0;
+    const readStdin = (file, options) => {
+        const encoding = typeof options === 'string' ? options : options && options.encoding;
+        return encoding ? test.input : Buffer.from(test.input);
+    };
+    const testFs = Object.assign({}, fs, {
+        readFileSync: (file, options) => file === 0 || file === '/dev/stdin'
+            ? readStdin(file, options)
+            : fs.readFileSync(file, options)
+    });
+    const write = chunk => {
+        test.output += String(chunk);
+        return true;
+    };
+    const testProcess = Object.create(process, {
+        stdin: { value: stdin },
+        stdout: { value: { write } },
+        exit: { value: code => { throw { harnessExit: code || 0 }; } }
+    });
+    const testConsole = Object.assign(Object.create(console), {
+        log: (...args) => write(util.format(...args) + '\n')
+    });
+    const testRequire = name => name === 'fs' ? testFs : require(name);
+    return { stdin, testProcess, testConsole, testRequire };
+}
+
+(async () => {
+    for (const input of inputs) {
+        const test = current = { input, output: '', status: 'OK' };
+        const { stdin, testProcess, testConsole, testRequire } = sandboxFor(test);
+        try {
+            const module = { exports: {} };
+            solution(testRequire, testProcess, testConsole, module, module.exports);
+        } catch (error) {
+            if (!error || error.harnessExit === undefined) {
+                test.status = 'ERROR';
+                process.stderr.write(String(error && error.stack || error) + '\n');
+            } else if (error.harnessExit !== 0) {
+                test.status = 'ERROR';
+            }
+        }
+        // Решения на readline/stdin-событиях печатают ответ по закрытию stdin
+        if (stdin.readableFlowing !== null && !stdin.readableEnded) {
+            await new Promise(resolve => stdin.once('end', resolve));
+        }
+        await new Promise(resolve => setImmediate(resolve));
+
+        let output = test.output;
+        if (output && !output.endsWith('\n')) {
+            output += '\n';
+        }
+        process.stdout.write(boundary + ' ' + test.status + '\n' + output);
+    }
+    current = null;
+})();
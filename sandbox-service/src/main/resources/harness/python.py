@@ -0,0 +1,61 @@
+# Обвязка HARNESS-режима: прогоняет решение на всех тестах в одном процессе.
+# stdin: строка-разделитель, затем вход каждого теста, завершённый строкой-разделителем.
+# stdout: для каждого теста строка "<разделитель> <OK|ERROR>", затем вывод решения.
+# Решение выполняется в собственном модуле __main__: состояние обвязки из него недоступно.
+import base64
+import builtins
+import io
+import sys
+import traceback
+import types
+
+
+def _run():
+    stdin, stdout = sys.stdin, sys.stdout
+    main_module = sys.modules["__main__"]
+    boundary = stdin.buffer.readline().decode("utf-8").rstrip("\n")
+    inputs = stdin.buffer.read().split((boundary + "\n").encode("utf-8"))[:-1]
+    code = compile(base64.b64decode("{{SOURCE}}").decode("utf-8"), "solution.py", "exec")
+
+    for data in inputs:
+        status = "OK"
+        output = io.BytesIO()
+        # TextIOWrapper над байтами: у потоков есть .buffer, как у настоящих stdin/stdout
+        sys.stdin = io.TextIOWrapper(io.BytesIO(data), encoding="utf-8")
+        sys.stdout = io.TextIOWrapper(output, encoding="utf-8", write_through=True)
+
+        def open_stdin(file, mode="r", *args, _data=data, **kwargs):
+            # open(0) читает вход теста, а не уже прочитанный обвязкой stdin процесса
+            if file == 0:
+                raw = io.BytesIO(_data)
+                return raw if "b" in mode else io.TextIOWrapper(raw, encoding=kwargs.get("encoding") or "utf-8")
+            return builtins.open(file, mode, *args, **kwargs)
+
+        module = types.ModuleType("__main__")
+        module.__dict__["__builtins__"] = dict(builtins.__dict__, open=open_stdin)
+        sys.modules["__main__"] = module
+        try:
+            exec(code, module.__dict__)
+        except SystemExit as exit_:
+            if exit_.code not in (None, 0):
+                status = "ERROR"
+        except BaseException:
+            status = "ERROR"
+            traceback.print_exc()
+        finally:
+            sys.modules["__main__"] = main_module
+            try:
+                sys.stdout.flush()
+            except Exception:
+                pass
+            # До восстановления: сборка обёртки закрывает буфер
+            result = output.getvalue().decode("utf-8", "replace") if not output.closed else ""
+            sys.stdin, sys.stdout = stdin, stdout
+
+        if result and not result.endswith("\n"):
+            result += "\n"
+        stdout.write(boundary + " " + status + "\n" + result)
+        stdout.flush()
+
+
+_run()
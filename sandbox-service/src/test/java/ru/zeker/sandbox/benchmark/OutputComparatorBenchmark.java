@@ -0,0 +1,86 @@
+package ru.zeker.sandbox.benchmark;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.zeker.common.dto.task.OutputCheckMode;
+import ru.zeker.sandbox.util.OutputComparator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение вывода: прежняя проверка (очистка регуляркой, полное декодирование,
+ * stripTrailing + equals) против потокового OutputComparator.
+ * <p>
+ * Запуск: mvn test-compile, затем main этого класса с test-classpath;
+ * для профиля аллокаций добавить -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputComparatorBenchmark {
+
+    @Param({"1000", "100000"})
+    private int lines;
+
+    private String encodedActual;
+    private String expected;
+
+    @Setup
+    public void setUp() {
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            output.append(i).append(' ').append(i * 0.5).append('\n');
+        }
+        expected = output.toString();
+        // Judge0 переносит base64 по 60 символов
+        encodedActual = Base64.getMimeEncoder(60, "\n".getBytes(StandardCharsets.US_ASCII))
+                .encodeToString(expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        String cleaned = encodedActual.replaceAll("[^A-Za-z0-9+/=]", StringUtils.EMPTY);
+        String actual = new String(Base64.getDecoder().decode(cleaned), StandardCharsets.UTF_8);
+        return actual.stripTrailing().equals(expected.stripTrailing());
+    }
+
+    @Benchmark
+    public boolean streamingExact() {
+        return OutputComparator.matchesEncoded(encodedActual, expected, OutputCheckMode.EXACT, 1e-6);
+    }
+
+    @Benchmark
+    public boolean streamingWhitespace() {
+        return OutputComparator.matchesEncoded(encodedActual, expected, OutputCheckMode.WHITESPACE, 1e-6);
+    }
+
+    @Benchmark
+    public boolean streamingFloatTolerance() {
+        return OutputComparator.matchesEncoded(encodedActual, expected, OutputCheckMode.FLOAT_TOLERANCE, 1e-6);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OutputComparatorBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,64 @@
+package ru.zeker.sandbox.client;
+
+import org.junit.jupiter.api.Test;
+import ru.zeker.sandbox.config.Judge0BalancerProperties;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTests {
+
+    private static final long OPEN_MS = 1_000;
+
+    @Test
+    void opensOnFailureRateAndClosesAfterSuccessfulProbes() {
+        CircuitBreaker breaker = new CircuitBreaker(properties());
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire(0));
+            breaker.onSuccess();
+        }
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        breaker.onFailure(0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire(OPEN_MS - 1));
+
+        assertTrue(breaker.tryAcquire(OPEN_MS));
+        assertTrue(breaker.tryAcquire(OPEN_MS));
+        assertFalse(breaker.tryAcquire(OPEN_MS));
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void failedProbeReopens() {
+        CircuitBreaker breaker = new CircuitBreaker(properties());
+        for (int i = 0; i < 6; i++) {
+            breaker.onFailure(0);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        assertTrue(breaker.tryAcquire(OPEN_MS));
+        breaker.onIgnored();
+        assertTrue(breaker.isCallPermitted(OPEN_MS));
+        breaker.onFailure(OPEN_MS);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.isCallPermitted(OPEN_MS + 1));
+    }
+
+    private Judge0BalancerProperties.CircuitBreaker properties() {
+        Judge0BalancerProperties.CircuitBreaker properties = new Judge0BalancerProperties.CircuitBreaker();
+        properties.setWindowSize(10);
+        properties.setMinimumCalls(6);
+        properties.setFailureRateThreshold(0.5);
+        properties.setOpenDuration(Duration.ofMillis(OPEN_MS));
+        properties.setHalfOpenCalls(2);
+        return properties;
+    }
+}
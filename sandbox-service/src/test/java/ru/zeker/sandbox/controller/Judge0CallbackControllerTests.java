@@ -0,0 +1,96 @@
+package ru.zeker.sandbox.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.zeker.common.dto.judge0.response.Status;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.sandbox.client.Judge0Endpoint;
+import ru.zeker.sandbox.service.Judge0SubmissionPoller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class Judge0CallbackControllerTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Judge0SubmissionPoller submissionPoller;
+    private FakeJudge0 judge0;
+
+    @BeforeEach
+    void setUp() {
+        submissionPoller = new Judge0SubmissionPoller(executor);
+        ReflectionTestUtils.setField(submissionPoller, "timeoutMs", 30_000L);
+        ReflectionTestUtils.setField(submissionPoller, "callbackEnabled", true);
+
+        MockMvc mockMvc = MockMvcBuilders
+                .standaloneSetup(new Judge0CallbackController(submissionPoller))
+                .build();
+        judge0 = new FakeJudge0(mockMvc, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void callbackCompletesPendingSubmission() throws Exception {
+        CompletableFuture<SubmissionResponse> result = submissionPoller.track(mock(Judge0Endpoint.class), "token-1", "solution-1");
+
+        judge0.finish("solution-1", "token-1", "NDIK")
+                .andExpect(status().isNoContent());
+
+        SubmissionResponse response = result.get(5, TimeUnit.SECONDS);
+        assertEquals("NDIK", response.getStdout());
+        assertEquals(0, submissionPoller.pendingCount());
+    }
+
+    @Test
+    void callbackForAnotherSolutionIsRejected() throws Exception {
+        CompletableFuture<SubmissionResponse> result = submissionPoller.track(mock(Judge0Endpoint.class), "token-1", "solution-1");
+
+        judge0.finish("solution-2", "token-1", "NDIK")
+                .andExpect(status().isNotFound());
+        judge0.finish("solution-1", "unknown-token", "NDIK")
+                .andExpect(status().isNotFound());
+
+        assertFalse(result.isDone());
+        assertEquals(1, submissionPoller.pendingCount());
+    }
+
+    /**
+     * Минимальная замена Judge0: по завершении сабмишена отправляет результат на callback_url
+     */
+    private record FakeJudge0(MockMvc mockMvc, ObjectMapper objectMapper) {
+
+        ResultActions finish(String solutionId, String token, String stdout) throws Exception {
+            SubmissionResponse response = SubmissionResponse.builder()
+                    .token(token)
+                    .stdout(stdout)
+                    .status(Status.builder().id(3).description("Accepted").build())
+                    .time(0.01f)
+                    .memory(3000f)
+                    .build();
+            return mockMvc.perform(put("/judge0/callbacks/{solutionId}", solutionId)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(response)));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.zeker.sandbox.domain.component;
+
+import org.junit.jupiter.api.Test;
+import ru.zeker.common.dto.task.TestCase;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestHarnessTests {
+
+    private static final String BOUNDARY = "@@B@@";
+
+    private final TestHarness testHarness = new TestHarness();
+
+    @Test
+    void packTerminatesEveryInputWithNewlineAndBoundary() {
+        String stdin = testHarness.packInput(BOUNDARY, List.of(test("1 2"), test("3\n"), test("")));
+
+        assertEquals("@@B@@\n1 2\n@@B@@\n3\n@@B@@\n\n@@B@@\n", stdin);
+    }
+
+    @Test
+    void unpackSplitsOutputsByHeaders() {
+        String stdout = "@@B@@ OK\n3\n@@B@@ ERROR\nTraceback\n@@B@@ OK\n";
+
+        List<TestHarness.TestOutput> outputs = testHarness.unpack(BOUNDARY, stdout);
+
+        assertEquals(List.of(
+                new TestHarness.TestOutput(true, "3\n"),
+                new TestHarness.TestOutput(false, "Traceback\n"),
+                new TestHarness.TestOutput(true, "")), outputs);
+    }
+
+    @Test
+    void boundaryWithoutStatusIsPartOfOutput() {
+        // Решение не знает разделитель, но и его строка без статуса не считается заголовком
+        String stdout = "@@B@@ OK\n@@B@@\nx\n";
+
+        assertEquals(List.of(new TestHarness.TestOutput(true, "@@B@@\nx\n")), testHarness.unpack(BOUNDARY, stdout));
+    }
+
+    @Test
+    void truncatedStdoutYieldsFewerOutputs() {
+        assertEquals(1, testHarness.unpack(BOUNDARY, "garbage before header\n@@B@@ OK\n1").size());
+        assertTrue(testHarness.unpack(BOUNDARY, null).isEmpty());
+        assertTrue(testHarness.unpack(BOUNDARY, "killed before any test\n").isEmpty());
+    }
+
+    @Test
+    void boundaryIsNewForEveryRun() {
+        assertNotEquals(testHarness.newBoundary(), testHarness.newBoundary());
+    }
+
+    private static TestCase test(String input) {
+        return TestCase.builder().input(input).output("").build();
+    }
+}
@@ -0,0 +1,184 @@
+package ru.zeker.sandbox.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.zeker.common.dto.judge0.response.Status;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
+import ru.zeker.common.dto.kafka.solution.TestResult;
+import ru.zeker.common.dto.solution.Language;
+import ru.zeker.common.dto.task.TestCase;
+import ru.zeker.sandbox.client.TaskClient;
+import ru.zeker.sandbox.config.AdmissionProperties;
+import ru.zeker.sandbox.config.ExecutionLimitProperties;
+import ru.zeker.sandbox.domain.component.TestHarness;
+import ru.zeker.sandbox.domain.dto.ExecutionReport;
+import ru.zeker.sandbox.domain.dto.ExecutionTask;
+import ru.zeker.sandbox.domain.model.enums.EngineType;
+import ru.zeker.sandbox.domain.model.enums.ExecutionMode;
+import ru.zeker.sandbox.service.engine.ExecutionEngine;
+import ru.zeker.sandbox.service.engine.ExecutionEngineRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CodeExecutionServiceTests {
+
+    private final StubEngine engine = new StubEngine();
+
+    private CodeExecutionService service;
+
+    @BeforeEach
+    void setUp() {
+        ExecutionEngineRegistry engineRegistry = mock(ExecutionEngineRegistry.class);
+        when(engineRegistry.forLanguage(any())).thenReturn(engine);
+
+        service = new CodeExecutionService(engineRegistry,
+                mock(ExecutionResultCache.class),
+                new TestHarness(),
+                new RuntimeStatistics(new ExecutionLimitProperties()),
+                mock(ExecutionProgressPublisher.class),
+                new TestSuiteCache(mock(TaskClient.class), 16, Duration.ofHours(1)),
+                new ExecutionCostEstimator(new AdmissionProperties()));
+        ReflectionTestUtils.setField(service, "floatTolerance", 1e-6);
+        ReflectionTestUtils.setField(service, "actualPreviewChars", 4096);
+    }
+
+    @Test
+    void failFastCancelsRunningTestsAfterFirstFailure() {
+        mode(ExecutionMode.FAIL_FAST, 2);
+
+        CompletableFuture<ExecutionReport> result = service.execute(request("print(1)", 4));
+        assertEquals(2, engine.submissions.size());
+
+        // Освободившееся место сразу занимает следующий тест
+        engine.submissions.get(1).complete(stdout("ok"));
+        assertEquals(3, engine.submissions.size());
+
+        engine.submissions.get(0).complete(stdout("wrong"));
+
+        ExecutionReport report = result.join();
+        assertEquals(4, report.getResponse().getStatus().getId());
+        assertEquals(List.of(0, 1), report.getTestResults().stream().map(TestResult::getIndex).toList());
+        assertTrue(engine.submissions.get(2).isCancelled());
+        assertEquals(3, engine.submissions.size());
+    }
+
+    @Test
+    void failFastAcceptsWhenAllTestsPass() {
+        mode(ExecutionMode.SEQUENTIAL, 1);
+
+        CompletableFuture<ExecutionReport> result = service.execute(request("print(1)", 3));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 1, engine.submissions.size());
+            engine.submissions.get(i).complete(stdout("ok"));
+        }
+
+        assertEquals(3, result.join().getResponse().getStatus().getId());
+    }
+
+    @Test
+    void identicalRunsShareOneExecution() {
+        mode(ExecutionMode.SEQUENTIAL, 1);
+
+        CompletableFuture<ExecutionReport> first = service.execute(request("print(1)", 1));
+        CompletableFuture<ExecutionReport> second = service.execute(request("print(1)  ", 1));
+        CompletableFuture<ExecutionReport> other = service.execute(request("print(2)", 1));
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertEquals(2, engine.submissions.size());
+
+        engine.submissions.get(0).complete(stdout("ok"));
+        assertEquals(3, second.join().getResponse().getStatus().getId());
+    }
+
+    @Test
+    void failedExecutionIsNotJoinedByLaterRuns() {
+        mode(ExecutionMode.SEQUENTIAL, 1);
+
+        CompletableFuture<ExecutionReport> failed = service.execute(request("print(1)", 1));
+        engine.submissions.get(0).completeExceptionally(new IllegalStateException("engine is down"));
+        assertTrue(failed.isCompletedExceptionally());
+
+        CompletableFuture<ExecutionReport> retried = service.execute(request("print(1)", 1));
+        assertNotSame(failed, retried);
+        assertFalse(retried.isDone());
+        assertEquals(2, engine.submissions.size());
+    }
+
+    @Test
+    void failureToStartIsNotJoinedByLaterRuns() {
+        mode(ExecutionMode.SEQUENTIAL, 1);
+        engine.rejectNext = true;
+
+        CompletableFuture<ExecutionReport> failed = service.execute(request("print(1)", 1));
+        assertTrue(failed.isCompletedExceptionally());
+
+        service.execute(request("print(1)", 1));
+        assertEquals(1, engine.submissions.size());
+    }
+
+    private void mode(ExecutionMode mode, int parallelism) {
+        ReflectionTestUtils.setField(service, "executionMode", mode);
+        ReflectionTestUtils.setField(service, "failFastParallelism", parallelism);
+    }
+
+    private static SolutionExecRequest request(String code, int tests) {
+        return SolutionExecRequest.builder()
+                .solutionId("solution-" + code.hashCode())
+                .language(Language.PYTHON)
+                .code(code)
+                .tests(Collections.nCopies(tests, TestCase.builder().input("1").output("ok").build()))
+                .build();
+    }
+
+    private static SubmissionResponse stdout(String output) {
+        return SubmissionResponse.builder()
+                .status(Status.builder().id(3).description("Accepted").build())
+                .stdout(Base64.getEncoder().encodeToString(output.getBytes(StandardCharsets.UTF_8)))
+                .time(0.01f)
+                .build();
+    }
+
+    /**
+     * Движок, результаты которого завершает тест
+     */
+    private static final class StubEngine implements ExecutionEngine {
+
+        private final List<CompletableFuture<SubmissionResponse>> submissions =
+                Collections.synchronizedList(new ArrayList<>());
+        private boolean rejectNext;
+
+        @Override
+        public EngineType type() {
+            return EngineType.LOCAL;
+        }
+
+        @Override
+        public CompletableFuture<SubmissionResponse> submit(ExecutionTask task) {
+            if (rejectNext) {
+                rejectNext = false;
+                throw new IllegalStateException("engine rejected submission");
+            }
+            CompletableFuture<SubmissionResponse> submission = new CompletableFuture<>();
+            submissions.add(submission);
+            return submission;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ru.zeker.sandbox.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import ru.zeker.common.dto.kafka.solution.ExecutionPriority;
+import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
+import ru.zeker.common.dto.solution.Language;
+import ru.zeker.common.dto.task.TestCase;
+import ru.zeker.sandbox.config.AdmissionProperties;
+import ru.zeker.sandbox.domain.model.enums.ExecutionLane;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class ExecutionAdmissionControllerTests {
+
+    // Запуски выполняются сразу в вызывающем потоке, чтобы порядок был детерминированным
+    private final ExecutorService directExecutor = mock(ExecutorService.class, invocation -> {
+        if (invocation.getMethod().getName().equals("execute")) {
+            ((Runnable) invocation.getArgument(0)).run();
+        }
+        return null;
+    });
+
+    private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+    private final List<CompletableFuture<Void>> running = Collections.synchronizedList(new ArrayList<>());
+
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+
+    private AdmissionProperties properties;
+    private ExecutionAdmissionController controller;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AdmissionProperties();
+        properties.setMaxInFlight(4);
+        properties.setLowWaterMark(2);
+        properties.setMaxInFlightPerUser(4);
+        properties.getLanes().put(ExecutionLane.FAST, lane(Duration.ofSeconds(1), 4, 1.0));
+        properties.getLanes().put(ExecutionLane.STANDARD, lane(Duration.ofSeconds(10), 2, 1.0));
+        properties.getLanes().put(ExecutionLane.HEAVY, lane(null, 1, 0.5));
+        properties.getCost().getDefaultPerTest().put(Language.PYTHON, Duration.ofMillis(100));
+
+        controller = new ExecutionAdmissionController(properties, new ExecutionCostEstimator(properties),
+                mock(KafkaListenerEndpointRegistry.class), directExecutor, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void heavyLaneIsLimitedToItsShare() {
+        submit("heavy-1", 500);
+        submit("heavy-2", 500);
+        submit("heavy-3", 500);
+        submit("fast-1", 2);
+
+        assertEquals(List.of("heavy-1", "heavy-2", "fast-1"), started);
+        assertEquals(1, controller.waiting());
+    }
+
+    @Test
+    void shortJobsAreStartedBeforeQueuedHeavyOnes() {
+        for (int i = 1; i <= 4; i++) {
+            submit("standard-" + i, 20);
+        }
+        submit("heavy-1", 500);
+        submit("fast-1", 2);
+        submit("fast-2", 2);
+
+        running.get(0).complete(null);
+        running.get(1).complete(null);
+
+        assertEquals(List.of("fast-1", "fast-2"), started.subList(4, 6));
+        assertEquals(1, controller.waiting());
+    }
+
+    @Test
+    void backgroundRejudgeDoesNotHoldBackUserSolutions() {
+        properties.getLanes().put(ExecutionLane.BACKGROUND, lane(null, 1, 0.25));
+        for (int i = 1; i <= 3; i++) {
+            submit("rejudge-" + i, 2, null, ExecutionPriority.BACKGROUND);
+        }
+        submit("fast-1", 2);
+
+        assertEquals(List.of("rejudge-1", "fast-1"), started);
+        assertEquals(2, controller.waiting());
+    }
+
+    @Test
+    void usersShareCapacityRoundRobin() {
+        for (int i = 1; i <= 6; i++) {
+            submit("alice-" + i, 2, alice);
+        }
+        submit("bob-1", 2, bob);
+        submit("bob-2", 2, bob);
+
+        for (int i = 0; i < 4; i++) {
+            running.get(i).complete(null);
+        }
+
+        assertEquals(List.of("alice-1", "alice-2", "alice-3", "alice-4"), started.subList(0, 4));
+        assertEquals(List.of("alice-5", "bob-1", "alice-6", "bob-2"), started.subList(4, 8));
+    }
+
+    @Test
+    void userInFlightIsCapped() {
+        properties.setMaxInFlight(8);
+        for (int i = 1; i <= 5; i++) {
+            submit("alice-" + i, 2, alice);
+        }
+
+        submit("bob-1", 2, bob);
+
+        assertEquals(List.of("alice-1", "alice-2", "alice-3", "alice-4", "bob-1"), started);
+        assertEquals(1, controller.waiting());
+    }
+
+    private void submit(String name, int tests) {
+        submit(name, tests, null);
+    }
+
+    private void submit(String name, int tests, UUID userId) {
+        submit(name, tests, userId, null);
+    }
+
+    private void submit(String name, int tests, UUID userId, ExecutionPriority priority) {
+        SolutionExecRequest request = SolutionExecRequest.builder()
+                .solutionId(name)
+                .userId(userId)
+                .priority(priority)
+                .language(Language.PYTHON)
+                .tests(Collections.nCopies(tests, new TestCase()))
+                .build();
+        controller.admit(request, () -> {
+            started.add(name);
+            CompletableFuture<Void> execution = new CompletableFuture<>();
+            running.add(execution);
+            return execution;
+        });
+    }
+
+    private AdmissionProperties.Lane lane(Duration maxCost, int weight, double maxShare) {
+        AdmissionProperties.Lane lane = new AdmissionProperties.Lane();
+        lane.setMaxCost(maxCost);
+        lane.setWeight(weight);
+        lane.setMaxShare(maxShare);
+        return lane;
+    }
+}
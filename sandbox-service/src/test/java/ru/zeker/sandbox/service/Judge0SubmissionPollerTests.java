@@ -0,0 +1,81 @@
+package ru.zeker.sandbox.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.zeker.common.dto.judge0.response.BatchSubmissionResponse;
+import ru.zeker.common.dto.judge0.response.Status;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.sandbox.client.Judge0Endpoint;
+import ru.zeker.sandbox.client.Judge0Operation;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class Judge0SubmissionPollerTests {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Judge0Endpoint endpoint = mock(Judge0Endpoint.class);
+
+    private Judge0SubmissionPoller submissionPoller;
+
+    @BeforeEach
+    void setUp() {
+        submissionPoller = new Judge0SubmissionPoller(executor);
+        ReflectionTestUtils.setField(submissionPoller, "maxTokensPerRequest", 20);
+        ReflectionTestUtils.setField(submissionPoller, "timeoutMs", 50L);
+        ReflectionTestUtils.setField(submissionPoller, "queueTimeoutMs", 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void queuedSubmissionDoesNotTimeOut() throws Exception {
+        respondWith(1, "In Queue");
+        CompletableFuture<SubmissionResponse> result = submissionPoller.track(endpoint, "token-1", "solution-1");
+
+        submissionPoller.poll();
+        Thread.sleep(100);
+        submissionPoller.poll();
+
+        assertFalse(result.isDone());
+        assertEquals(1, submissionPoller.pendingCount());
+    }
+
+    @Test
+    void processingSubmissionTimesOutFromStartOfProcessing() throws Exception {
+        respondWith(2, "Processing");
+        CompletableFuture<SubmissionResponse> result = submissionPoller.track(endpoint, "token-1", "solution-1");
+
+        submissionPoller.poll();
+        assertFalse(result.isDone());
+        Thread.sleep(100);
+        submissionPoller.poll();
+
+        assertTrue(result.isCompletedExceptionally());
+        assertEquals(0, submissionPoller.pendingCount());
+    }
+
+    private void respondWith(int statusId, String description) {
+        SubmissionResponse response = SubmissionResponse.builder()
+                .token("token-1")
+                .status(Status.builder().id(statusId).description(description).build())
+                .build();
+        when(endpoint.call(eq(Judge0Operation.POLL), any()))
+                .thenReturn(new BatchSubmissionResponse(List.of(response)));
+    }
+}
@@ -0,0 +1,89 @@
+package ru.zeker.sandbox.service;
+
+import org.junit.jupiter.api.Test;
+import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
+import ru.zeker.common.dto.task.TestCase;
+import ru.zeker.common.dto.task.response.TestSuiteResponse;
+import ru.zeker.sandbox.client.TaskClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TestSuiteCacheTests {
+
+    private final UUID taskId = UUID.randomUUID();
+    private final TaskClient taskClient = mock(TaskClient.class);
+    private final TestSuiteCache testSuiteCache = new TestSuiteCache(taskClient, 16, Duration.ofHours(1));
+
+    @Test
+    void concurrentRequestsForNewVersionLoadSuiteOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(taskClient.getTestSuite(any())).thenAnswer(invocation -> {
+            release.await();
+            return suite("v1");
+        });
+
+        List<SolutionExecRequest> requests = new ArrayList<>();
+        List<CompletableFuture<Void>> resolved = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                SolutionExecRequest request = request("v1");
+                requests.add(request);
+                resolved.add(CompletableFuture.runAsync(() -> testSuiteCache.resolve(request), executor));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            CompletableFuture.allOf(resolved.toArray(CompletableFuture[]::new)).join();
+        }
+
+        verify(taskClient, times(1)).getTestSuite(taskId);
+        for (SolutionExecRequest request : requests) {
+            assertSame(requests.getFirst().getTests(), request.getTests());
+            assertSame(testSuiteCache.inputs(requests.getFirst()), testSuiteCache.inputs(request));
+        }
+    }
+
+    @Test
+    void changedSuiteIsCachedUnderItsActualVersion() {
+        when(taskClient.getTestSuite(taskId)).thenReturn(suite("v2"));
+
+        SolutionExecRequest stale = request("v1");
+        testSuiteCache.resolve(stale);
+        SolutionExecRequest current = request("v2");
+        testSuiteCache.resolve(current);
+
+        assertEquals("v2", stale.getTestsVersion());
+        assertSame(stale.getTests(), current.getTests());
+        verify(taskClient, times(1)).getTestSuite(taskId);
+    }
+
+    private SolutionExecRequest request(String version) {
+        return SolutionExecRequest.builder()
+                .solutionId(UUID.randomUUID().toString())
+                .taskId(taskId)
+                .testsVersion(version)
+                .build();
+    }
+
+    private TestSuiteResponse suite(String version) {
+        return TestSuiteResponse.builder()
+                .taskId(taskId)
+                .version(version)
+                .tests(List.of(TestCase.builder().input("1 2").output("3").build()))
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package ru.zeker.sandbox.service.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.common.dto.judge0.response.SubmissionToken;
+import ru.zeker.common.dto.solution.Language;
+import ru.zeker.sandbox.client.Judge0Endpoint;
+import ru.zeker.sandbox.client.Judge0EndpointPool;
+import ru.zeker.sandbox.client.Judge0EndpointPool.Routed;
+import ru.zeker.sandbox.client.Judge0Operation;
+import ru.zeker.sandbox.domain.dto.ExecutionTask;
+import ru.zeker.sandbox.domain.dto.Payload;
+import ru.zeker.sandbox.exception.CodeExecutionException;
+import ru.zeker.sandbox.service.Judge0SubmissionPoller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class Judge0ExecutionEngineTests {
+
+    private final Judge0EndpointPool endpointPool = mock(Judge0EndpointPool.class);
+    private final Judge0SubmissionPoller submissionPoller = mock(Judge0SubmissionPoller.class);
+    private final Judge0Endpoint endpoint = mock(Judge0Endpoint.class);
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private final List<CompletableFuture<SubmissionResponse>> tracked = new ArrayList<>();
+
+    private Judge0ExecutionEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new Judge0ExecutionEngine(endpointPool, submissionPoller, mock(ExecutorService.class));
+        ReflectionTestUtils.setField(engine, "batchMaxSize", 20);
+
+        when(endpointPool.execute(eq(Judge0Operation.SUBMIT_BATCH), anyInt(), any())).thenAnswer(invocation -> {
+            int size = invocation.getArgument(1);
+            batchSizes.add(size);
+            List<SubmissionToken> tokens = IntStream.range(0, size)
+                    .mapToObj(i -> SubmissionToken.builder().token("token-" + batchSizes.size() + "-" + i).build())
+                    .toList();
+            return new Routed<>(endpoint, tokens);
+        });
+        when(submissionPoller.track(any(), anyString(), any())).thenAnswer(invocation -> {
+            CompletableFuture<SubmissionResponse> submission = new CompletableFuture<>();
+            tracked.add(submission);
+            return submission;
+        });
+    }
+
+    @Test
+    void tasksAreSentInChunksOfBatchMaxSize() {
+        List<CompletableFuture<SubmissionResponse>> submissions = engine.submitAll(tasks(45));
+
+        assertEquals(List.of(20, 20, 5), batchSizes);
+        assertEquals(45, submissions.size());
+        // Результаты в порядке задач
+        assertEquals(tracked, submissions);
+    }
+
+    @Test
+    void rejectedChunkCancelsAlreadySubmittedOnes() {
+        when(endpointPool.execute(eq(Judge0Operation.SUBMIT_BATCH), eq(5), any()))
+                .thenReturn(new Routed<>(endpoint, List.of()));
+
+        assertThrows(CodeExecutionException.class, () -> engine.submitAll(tasks(45)));
+
+        assertEquals(40, tracked.size());
+        assertTrue(tracked.stream().allMatch(CompletableFuture::isCancelled));
+        verify(endpoint).release(5);
+    }
+
+    private static List<ExecutionTask> tasks(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> ExecutionTask.builder()
+                        .solutionId("solution-1")
+                        .language(Language.PYTHON)
+                        .sourceCode(Payload.of("print(input())"))
+                        .stdin(Payload.of(i + "\n"))
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,97 @@
+package ru.zeker.sandbox.service.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.zeker.common.dto.judge0.response.SubmissionResponse;
+import ru.zeker.common.dto.solution.Language;
+import ru.zeker.sandbox.config.ExecutionEngineProperties;
+import ru.zeker.sandbox.domain.dto.ExecutionTask;
+import ru.zeker.sandbox.domain.dto.Payload;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class LocalProcessExecutionEngineTests {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private LocalProcessExecutionEngine engine;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        assumeTrue(new ProcessBuilder("python3", "--version").start().waitFor() == 0, "python3 is not installed");
+
+        ExecutionEngineProperties properties = new ExecutionEngineProperties();
+        properties.getLocal().setPoolSize(2);
+        properties.getLocal().setTimeLimit(Duration.ofSeconds(2));
+        engine = new LocalProcessExecutionEngine(properties, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void acceptedProgramReturnsEncodedStdout() throws Exception {
+        SubmissionResponse response = run("a, b = map(int, input().split())\nprint(a + b)", "2 3\n");
+
+        assertEquals(3, response.getStatus().getId());
+        assertEquals("5\n", decode(response.getStdout()));
+    }
+
+    @Test
+    void failingProgramIsRuntimeError() throws Exception {
+        SubmissionResponse response = run("raise ValueError('boom')", "");
+
+        assertEquals(11, response.getStatus().getId());
+    }
+
+    @Test
+    void programOverTimeLimitIsKilled() throws Exception {
+        SubmissionResponse response = run("while True:\n    pass", "");
+
+        assertEquals(5, response.getStatus().getId());
+    }
+
+    @Test
+    void childProcessesAreKilledWithProgram() throws Exception {
+        SubmissionResponse response = run("""
+                import subprocess
+                child = subprocess.Popen(["sleep", "30"])
+                print(child.pid, flush=True)
+                while True:
+                    pass
+                """, "");
+
+        assertEquals(5, response.getStatus().getId());
+        long childPid = Long.parseLong(decode(response.getStdout()).trim());
+        Optional<ProcessHandle> child = ProcessHandle.of(childPid);
+        if (child.isPresent()) {
+            child.get().onExit().get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private SubmissionResponse run(String code, String stdin) throws Exception {
+        return engine.submit(ExecutionTask.builder()
+                        .solutionId("solution-1")
+                        .language(Language.PYTHON)
+                        .sourceCode(Payload.of(code))
+                        .stdin(Payload.of(stdin))
+                        .build())
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    private String decode(String value) {
+        return new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+}
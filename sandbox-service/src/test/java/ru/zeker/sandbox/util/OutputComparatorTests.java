@@ -0,0 +1,58 @@
+package ru.zeker.sandbox.util;
+
+import org.junit.jupiter.api.Test;
+import ru.zeker.common.dto.task.OutputCheckMode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutputComparatorTests {
+
+    private static final double TOLERANCE = 1e-6;
+
+    @Test
+    void exactIgnoresOnlyTrailingWhitespace() {
+        assertTrue(matches("1 2\n3\n\n", "1 2\n3", OutputCheckMode.EXACT));
+        assertTrue(matches("привет  \n", "привет\n", OutputCheckMode.EXACT));
+        assertFalse(matches("1  2\n3", "1 2\n3", OutputCheckMode.EXACT));
+        assertFalse(matches("1 2", "1 2\n3", OutputCheckMode.EXACT));
+        assertFalse(matches("", "0", OutputCheckMode.EXACT));
+    }
+
+    @Test
+    void whitespaceComparesTokens() {
+        assertTrue(matches("1\t2\r\n 3 ", "1 2 3", OutputCheckMode.WHITESPACE));
+        assertFalse(matches("1 23", "1 2 3", OutputCheckMode.WHITESPACE));
+        assertFalse(matches("1 2", "1 2 3", OutputCheckMode.WHITESPACE));
+        assertFalse(matches("0.3333333", "0.333333", OutputCheckMode.WHITESPACE));
+    }
+
+    @Test
+    void floatToleranceComparesNumbersApproximately() {
+        assertTrue(matches("0.3333333 2", "0.333333 2", OutputCheckMode.FLOAT_TOLERANCE));
+        assertTrue(matches("1e3\n", "1000.0000001", OutputCheckMode.FLOAT_TOLERANCE));
+        assertFalse(matches("0.34", "0.333333", OutputCheckMode.FLOAT_TOLERANCE));
+        assertFalse(matches("yes", "no", OutputCheckMode.FLOAT_TOLERANCE));
+        assertFalse(matches("NaN", "NaN1", OutputCheckMode.FLOAT_TOLERANCE));
+    }
+
+    @Test
+    void wrappedBase64IsDecodedAndRawOutputIsFallback() {
+        String wrapped = Base64.getMimeEncoder(4, "\n".getBytes(StandardCharsets.US_ASCII))
+                .encodeToString("42\n".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(OutputComparator.matchesEncoded(wrapped, "42", OutputCheckMode.EXACT, TOLERANCE));
+        assertTrue(OutputComparator.matchesEncoded("not base64!", "not base64!", OutputCheckMode.EXACT, TOLERANCE));
+        assertFalse(OutputComparator.matchesEncoded(null, "", OutputCheckMode.EXACT, TOLERANCE));
+        assertEquals("4", OutputComparator.preview(wrapped, 1));
+    }
+
+    private boolean matches(String actual, String expected, OutputCheckMode mode) {
+        String encoded = Base64.getEncoder().encodeToString(actual.getBytes(StandardCharsets.UTF_8));
+        return OutputComparator.matchesEncoded(encoded, expected, mode, TOLERANCE);
+    }
+}
@@ -0,0 +1,46 @@
+package ru.zeker.sandbox.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTests {
+
+    private static final double ACCURACY = 0.02;
+
+    @Test
+    void quantilesAreWithinRelativeAccuracy() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 1_000_000);
+        for (int i = 1; i <= 10_000; i++) {
+            sketch.add(i);
+        }
+
+        assertWithinAccuracy(5_000, sketch.quantile(0.5));
+        assertWithinAccuracy(9_900, sketch.quantile(0.99));
+        assertWithinAccuracy(1, sketch.quantile(0));
+        assertEquals(10_000, sketch.count());
+    }
+
+    @Test
+    void decayKeepsRecentDistribution() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 1_000);
+        Random random = new Random(42);
+        for (int i = 0; i < 1_000; i++) {
+            sketch.add(10 + random.nextDouble());
+        }
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add(100 + random.nextDouble());
+        }
+
+        assertTrue(sketch.count() <= 1_000);
+        assertWithinAccuracy(100.5, sketch.quantile(0.5));
+    }
+
+    private void assertWithinAccuracy(double expected, double actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * ACCURACY + 1e-9,
+                () -> "expected ~" + expected + " but was " + actual);
+    }
+}
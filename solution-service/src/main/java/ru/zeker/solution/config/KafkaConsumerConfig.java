@@ -9,6 +9,7 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
@@ -26,9 +27,14 @@ public class KafkaConsumerConfig {
 
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
+        Map<String, Object> props = consumerProps();
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "solution-service");
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    private Map<String, Object> consumerProps() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, "solution-service");
 
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
@@ -42,8 +48,22 @@ public class KafkaConsumerConfig {
 
         props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500);
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return props;
+    }
 
-        return new DefaultKafkaConsumerFactory<>(props);
+    /**
+     * Для листенеров с ручным назначением партиций, которые читают с конца при каждом старте:
+     * без group.id контейнер не коммитит смещения и не вмешивается в группу solution-service
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> assignedKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(consumerProps()));
+        // Листенеры не подтверждают записи: коммитить без группы некуда
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setConcurrency(1);
+        return factory;
     }
 
     @Bean
@@ -56,4 +76,20 @@ public class KafkaConsumerConfig {
         return factory;
     }
 
+    /**
+     * Пакетный приём: листенер получает все записи poll'а, смещения коммитятся
+     * после возврата из листенера, то есть после коммита транзакции пакета
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object>
+    solutionExecBatchKafkaListenerContainerFactory(ConsumerFactory<String, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setConcurrency(16);
+        return factory;
+    }
+
 }
\ No newline at end of file
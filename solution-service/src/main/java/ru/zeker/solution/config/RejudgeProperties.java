@@ -0,0 +1,37 @@
+package ru.zeker.solution.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "solution.rejudge")
+public class RejudgeProperties {
+    /**
+     * Сколько решений в секунду отправлять на перепроверку по каждому заданию
+     */
+    private double ratePerSecond = 5;
+
+    /**
+     * Максимум решений задания, которые одновременно ждут результата перепроверки
+     */
+    private int maxOutstanding = 20;
+
+    /**
+     * Период отправки очередной пачки
+     */
+    private long intervalMs = 1000;
+
+    /**
+     * Сколько ждать результата перепроверки: очередь BACKGROUND в sandbox-service может подолгу
+     * уступать решениям пользователей. Не дождавшиеся результата считаются ошибками задания
+     */
+    private Duration resultTimeout = Duration.ofMinutes(30);
+
+    public int batchSize() {
+        return (int) Math.max(1, Math.round(ratePerSecond * intervalMs / 1000.0));
+    }
+}
@@ -1,25 +1,45 @@
 package ru.zeker.solution.domain.mapper;
 
-import org.mapstruct.AfterMapping;
-import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
-import org.mapstruct.MappingTarget;
 import org.mapstruct.Named;
 import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
 import ru.zeker.common.dto.solution.response.SolutionResponse;
-import ru.zeker.common.dto.task.TestCase;
+import ru.zeker.common.dto.task.response.TaskResponse;
+import ru.zeker.solution.domain.model.dto.TaskSummary;
 import ru.zeker.solution.domain.model.entity.Solution;
 import ru.zeker.common.dto.solution.SolutionStatus;
 
-import java.util.List;
 import java.util.UUID;
 
 @Mapper(componentModel = "spring")
 public interface SolutionMapper {
 
+    /**
+     * Сообщение на выполнение без тестов: sandbox-service получает их по taskId и testsVersion
+     */
     @Mapping(target = "solutionId", source = "id")
-    SolutionExecRequest toKafkaMessage(Solution solution, @Context List<TestCase> tests);
+    @Mapping(target = "tests", ignore = true)
+    SolutionExecRequest toKafkaMessage(Solution solution);
+
+    /**
+     * Без версии набора (task-service без версий) тесты в сообщение нужно добавить отдельно
+     */
+    default SolutionExecRequest toKafkaMessage(Solution solution, TaskSummary task) {
+        SolutionExecRequest message = toKafkaMessage(solution);
+        message.setCheckMode(task.checkMode());
+        message.setTestsVersion(task.testsVersion());
+        return message;
+    }
+
+    default SolutionExecRequest toKafkaMessage(Solution solution, TaskResponse task) {
+        SolutionExecRequest message = toKafkaMessage(solution, TaskSummary.of(task));
+        if (task.getTestsVersion() == null) {
+            // task-service без версий наборов: тесты по-прежнему передаются в сообщении
+            message.setTests(task.getTests());
+        }
+        return message;
+    }
 
     @Mapping(target = "status", source = "status", qualifiedByName = "solutionStatusToString")
     SolutionResponse toResponse(Solution solution);
@@ -33,9 +53,4 @@ public interface SolutionMapper {
     default String uuidToString(UUID uuid) {
         return uuid != null ? uuid.toString() : null;
     }
-
-    @AfterMapping
-    default void addTests(Solution solution, @MappingTarget SolutionExecRequest request, @Context List<TestCase> tests) {
-        request.setTests(tests);
-    }
 }
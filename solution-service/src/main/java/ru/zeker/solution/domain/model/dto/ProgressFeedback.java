@@ -0,0 +1,51 @@
+package ru.zeker.solution.domain.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.zeker.common.dto.kafka.solution.TestResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feedback решения: результаты уже завершённых тестов на своих местах, незавершённые тесты - null
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProgressFeedback {
+
+    private int completed;
+    private int total;
+
+    /**
+     * Номер первого упавшего теста, null - пока всё прошло
+     */
+    private Integer firstFailedTest;
+
+    /**
+     * Ошибка выполнения (компиляция, таймаут, недоступность sandbox); результаты тестов при этом сохраняются
+     */
+    private String error;
+
+    @Builder.Default
+    private List<TestResult> tests = new ArrayList<>();
+
+    public void add(int index, int testCount, TestResult testResult) {
+        total = Math.max(total, testCount);
+        while (tests.size() < total) {
+            tests.add(null);
+        }
+        if (index < 0 || index >= tests.size() || tests.get(index) != null) {
+            return;
+        }
+        tests.set(index, testResult);
+        completed++;
+        if (!testResult.isPassed() && (firstFailedTest == null || index < firstFailedTest)) {
+            firstFailedTest = index;
+        }
+    }
+}
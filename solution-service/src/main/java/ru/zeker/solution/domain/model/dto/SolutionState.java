@@ -0,0 +1,19 @@
+package ru.zeker.solution.domain.model.dto;
+
+import ru.zeker.common.dto.solution.SolutionStatus;
+
+import java.util.UUID;
+
+/**
+ * Проекция решения для применения результатов выполнения
+ */
+public interface SolutionState {
+
+    UUID getId();
+
+    UUID getTaskId();
+
+    UUID getUserId();
+
+    SolutionStatus getStatus();
+}
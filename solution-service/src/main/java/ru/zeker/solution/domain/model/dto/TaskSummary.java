@@ -0,0 +1,20 @@
+package ru.zeker.solution.domain.model.dto;
+
+import ru.zeker.common.dto.task.Difficulty;
+import ru.zeker.common.dto.task.OutputCheckMode;
+import ru.zeker.common.dto.task.response.TaskResponse;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Поля задачи для отправки решения и учёта прогресса, без тестов и текстов условия
+ */
+public record TaskSummary(UUID id, Difficulty difficulty, Set<String> tags, String testsVersion,
+                          OutputCheckMode checkMode) {
+
+    public static TaskSummary of(TaskResponse task) {
+        return new TaskSummary(task.getId(), task.getDifficulty(), task.getTags() != null ? Set.copyOf(task.getTags()) : Set.of(),
+                task.getTestsVersion(), task.getCheckMode());
+    }
+}
@@ -0,0 +1,85 @@
+package ru.zeker.solution.domain.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.proxy.HibernateProxy;
+import ru.zeker.common.model.BaseEntity;
+import ru.zeker.solution.domain.model.enums.RejudgeStatus;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Перепроверка принятых решений задачи после изменения её тестов.
+ * lastSolutionId - курсор: решения перебираются по возрастанию id, и после перезапуска
+ * сервиса задание продолжается с места последней отправки
+ */
+@Getter
+@Setter
+@ToString
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "rejudge_jobs", indexes = {
+        @Index(columnList = "status")
+})
+public class RejudgeJob extends BaseEntity {
+
+    @Column(nullable = false)
+    private UUID taskId;
+
+    @Column(length = 64)
+    private String testsVersion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RejudgeStatus status;
+
+    private UUID lastSolutionId;
+
+    /**
+     * Отправлено на выполнение
+     */
+    @Column(nullable = false)
+    private int submitted;
+
+    /**
+     * Заполняются при завершении: сколько решений больше не проходят тесты
+     * и сколько перепроверок не выполнилось (таймаут, sandbox недоступен)
+     */
+    @Column(nullable = false)
+    private int regressed;
+
+    @Column(nullable = false)
+    private int errors;
+
+    private LocalDateTime finishedAt;
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        Class<?> oEffectiveClass = o instanceof HibernateProxy proxy ? proxy.getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy proxy ? proxy.getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        RejudgeJob job = (RejudgeJob) o;
+        return getId() != null && Objects.equals(getId(), job.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return this instanceof HibernateProxy proxy ? proxy.getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
+    }
+}
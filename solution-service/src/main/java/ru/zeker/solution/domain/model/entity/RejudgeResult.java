@@ -0,0 +1,70 @@
+package ru.zeker.solution.domain.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.proxy.HibernateProxy;
+import ru.zeker.common.dto.solution.SolutionStatus;
+import ru.zeker.common.model.BaseEntity;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Вердикт перепроверки решения. Хранится отдельно от решения: вердикт пользователя
+ * и feedback перепроверка не меняет. PENDING - результат ещё не пришёл
+ */
+@Getter
+@Setter
+@ToString
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "rejudge_results", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"rejudgeJobId", "solutionId"})
+},
+        indexes = {
+                @Index(columnList = "rejudgeJobId, status, updatedAt")
+        })
+public class RejudgeResult extends BaseEntity {
+
+    @Column(nullable = false)
+    private UUID rejudgeJobId;
+
+    @Column(nullable = false)
+    private UUID solutionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SolutionStatus status;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        Class<?> oEffectiveClass = o instanceof HibernateProxy proxy ? proxy.getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy proxy ? proxy.getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        RejudgeResult result = (RejudgeResult) o;
+        return getId() != null && Objects.equals(getId(), result.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return this instanceof HibernateProxy proxy ? proxy.getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
+    }
+}
@@ -30,7 +30,8 @@ import java.util.UUID;
 @NoArgsConstructor
 @Entity
 @Table(name = "solutions", indexes = {
-        @Index(columnList = "userId")
+        @Index(columnList = "userId"),
+        @Index(columnList = "taskId, status, id")
 })
 public class Solution extends BaseEntity {
 
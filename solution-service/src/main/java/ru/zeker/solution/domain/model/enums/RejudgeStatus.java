@@ -0,0 +1,8 @@
+package ru.zeker.solution.domain.model.enums;
+
+public enum RejudgeStatus {
+    RUNNING,
+    COMPLETED,
+    // Тесты задачи снова изменились: перепроверку продолжает новое задание
+    CANCELLED
+}
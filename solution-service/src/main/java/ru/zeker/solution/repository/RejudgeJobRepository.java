@@ -0,0 +1,30 @@
+package ru.zeker.solution.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import ru.zeker.solution.domain.model.entity.RejudgeJob;
+import ru.zeker.solution.domain.model.enums.RejudgeStatus;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RejudgeJobRepository extends JpaRepository<RejudgeJob, UUID> {
+
+    List<RejudgeJob> findByStatus(RejudgeStatus status);
+
+    /**
+     * Задание, если его не обрабатывает другой экземпляр сервиса: занятая строка пропускается (SKIP LOCKED)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    Optional<RejudgeJob> findByIdAndStatus(UUID id, RejudgeStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<RejudgeJob> findFirstByTaskIdAndStatus(UUID taskId, RejudgeStatus status);
+}
@@ -0,0 +1,34 @@
+package ru.zeker.solution.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.zeker.common.dto.solution.SolutionStatus;
+import ru.zeker.solution.domain.model.entity.RejudgeResult;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+@Repository
+public interface RejudgeResultRepository extends JpaRepository<RejudgeResult, UUID> {
+
+    long countByRejudgeJobIdAndStatus(UUID rejudgeJobId, SolutionStatus status);
+
+    long countByRejudgeJobIdAndStatusIn(UUID rejudgeJobId, Collection<SolutionStatus> statuses);
+
+    /**
+     * Завершает по таймауту перепроверки задания, которые ждут результата с updatedAt раньше before
+     */
+    @Modifying
+    @Query("UPDATE RejudgeResult r SET r.status = :timeout, r.error = :error, r.updatedAt = :now, r.version = r.version + 1 " +
+            "WHERE r.rejudgeJobId = :jobId AND r.status = :pending AND r.updatedAt < :before")
+    int expirePending(@Param("jobId") UUID jobId,
+                      @Param("pending") SolutionStatus pending,
+                      @Param("timeout") SolutionStatus timeout,
+                      @Param("error") String error,
+                      @Param("before") LocalDateTime before,
+                      @Param("now") LocalDateTime now);
+}
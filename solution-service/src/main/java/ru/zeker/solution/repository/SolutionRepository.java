@@ -1,13 +1,17 @@
 package ru.zeker.solution.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.zeker.common.dto.solution.SolutionStatus;
+import ru.zeker.solution.domain.model.dto.SolutionState;
 import ru.zeker.solution.domain.model.entity.Solution;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,7 +20,28 @@ public interface SolutionRepository extends JpaRepository<Solution, UUID> {
 
     List<Solution> findByUserId(UUID userId);
 
-    List<Solution>findByStatusAndCreatedAtBefore(SolutionStatus status, LocalDateTime createdAt);
+    /**
+     * Состояние решений пакета одним IN-запросом, без кода и feedback
+     */
+    List<SolutionState> findStatesByIdIn(Collection<UUID> ids);
+
+    List<Solution> findByStatusAndCreatedAtBefore(SolutionStatus status, LocalDateTime createdAt);
+
+    // Страницы перепроверки: keyset по id вместо OFFSET
+    List<Solution> findByTaskIdAndStatusOrderByIdAsc(UUID taskId, SolutionStatus status, Pageable pageable);
+
+    List<Solution> findByTaskIdAndStatusAndIdGreaterThanOrderByIdAsc(UUID taskId, SolutionStatus status,
+                                                                      UUID lastId, Pageable pageable);
+
+    /**
+     * Обновляет feedback только у ещё выполняющегося решения и без инкремента версии:
+     * прогресс не должен конфликтовать с итоговым результатом, пришедшим в другом топике
+     */
+    @Modifying
+    @Query("UPDATE Solution s SET s.feedback = :feedback WHERE s.id = :id AND s.status = :status")
+    int updateFeedbackIfStatus(@Param("id") UUID id,
+                               @Param("feedback") String feedback,
+                               @Param("status") SolutionStatus status);
 
     @Query("SELECT DATE(s.createdAt), COUNT(s) " +
             "FROM Solution s " +
@@ -5,10 +5,19 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
 import org.springframework.stereotype.Service;
+import ru.zeker.common.dto.kafka.solution.SolutionExecProgress;
 import ru.zeker.common.dto.kafka.solution.SolutionExecResult;
+import ru.zeker.common.dto.kafka.task.TaskChangedEvent;
+import ru.zeker.common.dto.kafka.task.TaskTestsChangedEvent;
 import ru.zeker.common.dto.solution.SolutionStatus;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -17,10 +26,17 @@ import java.util.UUID;
 public class ConsumerKafkaListeners {
 
     private final SolutionService solutionService;
+    private final RejudgeService rejudgeService;
+    private final TaskCache taskCache;
+    private final RecommendationService recommendationService;
 
+    /**
+     * Поштучный приём результатов; работает, только если пакетный выключен
+     */
     @KafkaListener(
             topics = "solution.exec.result",
-            containerFactory = "solutionExecKafkaListenerContainerFactory"
+            containerFactory = "solutionExecKafkaListenerContainerFactory",
+            autoStartup = "#{!${solution.results.batch.enabled:true}}"
     )
     void listen(
             ConsumerRecord<String, SolutionExecResult> record
@@ -36,14 +52,121 @@ public class ConsumerKafkaListeners {
         }
     }
 
+    /**
+     * Пакетный приём результатов. Исключение при записи пакета не перехватывается:
+     * транзакция откатывается, смещения не коммитятся, и пакет обрабатывается повторно
+     */
+    @KafkaListener(
+            topics = "solution.exec.result",
+            containerFactory = "solutionExecBatchKafkaListenerContainerFactory",
+            autoStartup = "${solution.results.batch.enabled:true}",
+            properties = "max.poll.records=${solution.results.batch.max-size:500}"
+    )
+    void listenBatch(
+            List<ConsumerRecord<String, SolutionExecResult>> records
+    ) throws JsonProcessingException {
+        // Повторный результат того же решения в пакете заменяет предыдущий
+        Map<UUID, SolutionExecResult> results = new LinkedHashMap<>();
+        List<SolutionExecResult> rejudged = new ArrayList<>();
+        for (ConsumerRecord<String, SolutionExecResult> record : records) {
+            SolutionExecResult result = record.value();
+            if (result == null) {
+                log.warn("Skipping unreadable execution result (offset={}, partition={})", record.offset(), record.partition());
+                continue;
+            }
+            try {
+                UUID solutionId = parseSolutionIdOrThrow(result.getSolutionId());
+                if (result.getRejudgeJobId() != null) {
+                    rejudged.add(result);
+                } else {
+                    results.put(solutionId, result);
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping execution result (offset={}, partition={}): {}",
+                        record.offset(), record.partition(), e.getMessage());
+            }
+        }
+        if (!rejudged.isEmpty()) {
+            rejudgeService.applyResults(rejudged);
+        }
+        if (results.isEmpty()) {
+            return;
+        }
+
+        List<SolutionService.AppliedResult> applied = solutionService.applyExecutionResults(results);
+        log.info("Applied {} of {} execution results", applied.size(), records.size());
+        // После коммита и без гарантий: очередь рекомендаций в худшем случае устареет до истечения TTL
+        recommendationService.markDirty(applied.stream()
+                .filter(result -> shouldUpdateProgress(result.status()))
+                .map(SolutionService.AppliedResult::userId)
+                .distinct()
+                .toList());
+    }
+
+    @KafkaListener(
+            topics = "solution.exec.progress",
+            containerFactory = "solutionExecKafkaListenerContainerFactory"
+    )
+    void listenProgress(
+            ConsumerRecord<String, SolutionExecProgress> record
+    ) {
+        try {
+            SolutionExecProgress progress = record.value();
+            solutionService.applyExecutionProgress(parseSolutionIdOrThrow(progress.getSolutionId()), progress);
+        } catch (Exception e) {
+            // Прогресс необязателен: итоговый результат придёт в solution.exec.result
+            log.warn("Failed to apply execution progress (offset={}, partition={}): {}",
+                    record.offset(), record.partition(), e.getMessage());
+        }
+    }
+
+    @KafkaListener(
+            topics = "task.tests.changed",
+            containerFactory = "solutionExecKafkaListenerContainerFactory"
+    )
+    void listenTestsChanged(
+            ConsumerRecord<String, TaskTestsChangedEvent> record
+    ) {
+        try {
+            rejudgeService.schedule(record.value());
+        } catch (Exception e) {
+            log.error("Failed to schedule rejudge (offset={}, partition={}), error: {}",
+                    record.offset(), record.partition(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Сброс кэша задач и задач рекомендаций в Redis. Партиция назначается вручную (assign), экземпляр
+     * не вступает в группу потребителей: событие доходит до каждого экземпляра, и новые группы
+     * не создаются при каждом запуске. Чтение с конца - при старте кэш пуст; у темы одна партиция
+     */
+    @KafkaListener(
+            topicPartitions = @TopicPartition(topic = "task.changed",
+                    partitionOffsets = @PartitionOffset(partition = "0", initialOffset = "0", seekPosition = "END")),
+            containerFactory = "assignedKafkaListenerContainerFactory"
+    )
+    void listenTaskChanged(
+            ConsumerRecord<String, TaskChangedEvent> record
+    ) {
+        try {
+            taskCache.invalidate(record.value().getTaskId(), record.timestamp());
+            recommendationService.evictTask(record.value().getTaskId());
+        } catch (Exception e) {
+            log.error("Failed to invalidate cached task (offset={}, partition={}), error: {}",
+                    record.offset(), record.partition(), e.getMessage(), e);
+        }
+    }
+
     private void handleMessage(ConsumerRecord<String, SolutionExecResult> record) throws JsonProcessingException {
         SolutionExecResult result = record.value();
         UUID solutionId = parseSolutionIdOrThrow(result.getSolutionId());
-        SolutionStatus status = result.getStatus();
-        solutionService.updateSolutionStatus(solutionId, result);
-        if (shouldUpdateProgress(status)) {
-            solutionService.updateProgressIfNeeded(solutionId, result.getStatus() == SolutionStatus.SUCCESS);
+        if (result.getRejudgeJobId() != null) {
+            rejudgeService.applyResults(List.of(result));
+            return;
         }
+        solutionService.updateSolutionStatus(solutionId, result)
+                .filter(applied -> shouldUpdateProgress(applied.status()))
+                .ifPresent(applied -> recommendationService.markDirty(List.of(applied.userId())));
     }
 
     private boolean shouldUpdateProgress(SolutionStatus status) {
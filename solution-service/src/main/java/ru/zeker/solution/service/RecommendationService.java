@@ -1,32 +1,198 @@
 package ru.zeker.solution.service;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import ru.zeker.common.dto.task.response.TaskResponse;
 import ru.zeker.solution.client.TaskClient;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static ru.zeker.solution.constant.Confidences.DEFAULT_CONFIDENCE;
 import static ru.zeker.solution.constant.Confidences.DIFFICULTY_WEIGHT_SUM;
 import static ru.zeker.solution.constant.Confidences.MAX_CONFIDENCE;
 
+/**
+ * Рекомендации задач по прогрессу пользователя.
+ * <p>
+ * Ранжированная очередь задач пользователя хранится в Redis (sorted set, score - приоритет) и
+ * пересчитывается в фоне после изменения прогресса. Пользователи, ждущие пересчёта, - в Redis-множестве,
+ * общем для всех экземпляров сервиса и переживающем перезапуск. Сами задачи без тестов лежат в Redis
+ * под своими ключами с TTL очереди: чтение - два запроса в Redis без обращений к task-service. Пока очереди
+ * нет или какой-то из её задач уже нет в Redis, рекомендации считаются синхронно
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class RecommendationService {
 
     private static final int CANDIDATE_TASKS_LIMIT = 30;
     private static final int WEAK_TOPICS_LIMIT = 3;
+    private static final String KEY_PREFIX = "solution:recommendations:";
+    private static final String DIRTY_KEY = KEY_PREFIX + "dirty";
+    private static final String TASK_KEY_PREFIX = KEY_PREFIX + "task:";
 
     private final UserProgressService userProgressService;
     private final TaskClient taskClient;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean queueEnabled;
+    private final Duration queueTtl;
+    private final int refreshBatchSize;
+
+    public RecommendationService(UserProgressService userProgressService,
+                                 TaskClient taskClient,
+                                 StringRedisTemplate redisTemplate,
+                                 ObjectMapper objectMapper,
+                                 @Value("${solution.recommendations.queue.enabled:true}") boolean queueEnabled,
+                                 @Value("${solution.recommendations.queue.ttl:P7D}") Duration queueTtl,
+                                 @Value("${solution.recommendations.queue.refresh-batch-size:200}") int refreshBatchSize) {
+        this.userProgressService = userProgressService;
+        this.taskClient = taskClient;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.queueEnabled = queueEnabled;
+        this.queueTtl = queueTtl;
+        this.refreshBatchSize = refreshBatchSize;
+    }
 
     public List<TaskResponse> getRecommendedTasks(UUID userId, int limit) {
+        if (!queueEnabled) {
+            return top(rank(userId), limit);
+        }
+
+        List<String> cached;
+        try {
+            Set<String> queue = redisTemplate.opsForZSet().reverseRange(key(userId), 0, limit - 1L);
+            if (queue == null || queue.isEmpty()) {
+                // Холодный старт: очередь ещё не построена или истекла
+                return top(materialize(userId), limit);
+            }
+            cached = redisTemplate.opsForValue().multiGet(queue.stream().map(RecommendationService::taskKey).toList());
+        } catch (Exception e) {
+            log.warn("Failed to read recommendation queue of user {} from Redis: {}", userId, e.getMessage());
+            return top(rank(userId), limit);
+        }
+
+        List<TaskResponse> tasks = new ArrayList<>(cached.size());
+        for (String json : cached) {
+            TaskResponse task = json == null ? null : readTask(json);
+            if (task == null) {
+                // Задача изменилась, удалена или истекла: очередь пересчитывается со свежими задачами
+                log.debug("Recommendation queue of user {} refers to a task missing in Redis, rebuilding", userId);
+                return top(materialize(userId), limit);
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Помечает очереди пользователей для пересчёта; несколько изменений до пересчёта схлопываются в одно
+     */
+    public void markDirty(Collection<UUID> userIds) {
+        if (!queueEnabled || userIds.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.opsForSet().add(DIRTY_KEY, userIds.stream().map(UUID::toString).toArray(String[]::new));
+        } catch (Exception e) {
+            // Очередь останется прежней до следующего изменения прогресса или истечения TTL
+            log.warn("Failed to mark recommendation queues of {} users for refresh: {}", userIds.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Убирает изменённую или удалённую задачу из Redis; очереди с ней пересчитываются при чтении
+     */
+    public void evictTask(UUID taskId) {
+        if (queueEnabled) {
+            redisTemplate.delete(taskKey(taskId.toString()));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${solution.recommendations.queue.refresh-interval-ms:1000}")
+    public void refreshDirtyQueues() {
+        if (!queueEnabled) {
+            return;
+        }
+        // SPOP: каждый пользователь достаётся одному экземпляру сервиса
+        List<String> batch = redisTemplate.opsForSet().pop(DIRTY_KEY, refreshBatchSize);
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+
+        for (String userId : batch) {
+            try {
+                materialize(UUID.fromString(userId));
+            } catch (Exception e) {
+                log.warn("Failed to refresh recommendation queue of user {}: {}", userId, e.getMessage());
+            }
+        }
+        log.debug("Refreshed recommendation queues of {} users", batch.size());
+    }
+
+    /**
+     * Пересчитывает очередь пользователя и атомарно заменяет её в Redis
+     *
+     * @return задачи очереди по убыванию приоритета
+     */
+    private List<RankedTask> materialize(UUID userId) {
+        List<RankedTask> ranked = rank(userId);
+        try {
+            String key = key(userId);
+            if (ranked.isEmpty()) {
+                redisTemplate.delete(key);
+                return ranked;
+            }
+            Set<TypedTuple<String>> entries = new HashSet<>(ranked.size());
+            Map<String, String> tasks = new HashMap<>(ranked.size());
+            for (RankedTask ranking : ranked) {
+                String taskId = ranking.task().getId().toString();
+                entries.add(new DefaultTypedTuple<>(taskId, ranking.priority()));
+                tasks.put(taskKey(taskId), objectMapper.writeValueAsString(ranking.task()));
+            }
+            // Задачи - до очереди: читатель новой очереди находит все её задачи.
+            // У каждой задачи свой TTL, поэтому задачи, выпавшие из всех очередей, истекают
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection strings = (StringRedisConnection) connection;
+                tasks.forEach((taskKey, json) -> strings.set(taskKey, json, Expiration.from(queueTtl), SetOption.upsert()));
+                return null;
+            });
+            // Очередь собирается под временным ключом: читатели видят либо старую, либо новую целиком
+            String staging = key + ":" + UUID.randomUUID();
+            redisTemplate.opsForZSet().add(staging, entries);
+            redisTemplate.expire(staging, queueTtl);
+            redisTemplate.rename(staging, key);
+        } catch (Exception e) {
+            log.warn("Failed to store recommendation queue of user {} in Redis: {}", userId, e.getMessage());
+        }
+        return ranked;
+    }
+
+    /**
+     * Кандидаты по слабым темам пользователя по убыванию приоритета
+     */
+    private List<RankedTask> rank(UUID userId) {
         List<String> weakTopics = userProgressService.getWeakestTopics(userId, WEAK_TOPICS_LIMIT);
 
         List<TaskResponse> candidateTasks;
@@ -44,20 +210,12 @@ public class RecommendationService {
 
         Map<String, Double> confidenceMap = userProgressService.getUserConfidenceMap(userId);
         return candidateTasks.stream()
-                .sorted(comparatorByAdaptivePriority(confidenceMap))
-                .limit(limit)
+                .map(task -> new RankedTask(withoutTests(task), calculatePriority(task, confidenceMap)))
+                // Сортируем по убыванию приоритета: самые важные — первые
+                .sorted(Comparator.comparingDouble(RankedTask::priority).reversed())
                 .toList();
     }
 
-    private Comparator<TaskResponse> comparatorByAdaptivePriority(Map<String, Double> confidenceMap) {
-        return (a, b) -> {
-            double priorityA = calculatePriority(a, confidenceMap);
-            double priorityB = calculatePriority(b, confidenceMap);
-            // Сортируем по убыванию приоритета: самые важные — первые
-            return Double.compare(priorityB, priorityA);
-        };
-    }
-
     private double calculatePriority(TaskResponse task, Map<String, Double> confidenceMap) {
         // Средний рейтинг по всем тегам задачи (по умолчанию 0.5)
         double avgConfidence = task.getTags().stream()
@@ -71,4 +229,45 @@ public class RecommendationService {
         // Приоритет = (1 - уверенность) * вес сложности
         return (MAX_CONFIDENCE - avgConfidence) * difficultyWeight;
     }
+
+    // Рекомендации показывают только описание задачи, тесты в Redis и в ответ не попадают
+    private static TaskResponse withoutTests(TaskResponse task) {
+        return TaskResponse.builder()
+                .id(task.getId())
+                .title(task.getTitle())
+                .description(task.getDescription())
+                .difficulty(task.getDifficulty())
+                .tags(task.getTags())
+                .templateCode(task.getTemplateCode())
+                .testsVersion(task.getTestsVersion())
+                .checkMode(task.getCheckMode())
+                .build();
+    }
+
+    private TaskResponse readTask(String json) {
+        try {
+            return objectMapper.readValue(json, TaskResponse.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to parse recommended task from Redis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static List<TaskResponse> top(List<RankedTask> ranked, int limit) {
+        return ranked.stream()
+                .limit(limit)
+                .map(RankedTask::task)
+                .toList();
+    }
+
+    private static String key(UUID userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private static String taskKey(String taskId) {
+        return TASK_KEY_PREFIX + taskId;
+    }
+
+    private record RankedTask(TaskResponse task, double priority) {
+    }
 }
@@ -0,0 +1,215 @@
+package ru.zeker.solution.service;
+
+import feign.FeignException;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.zeker.common.dto.kafka.solution.ExecutionPriority;
+import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
+import ru.zeker.common.dto.kafka.solution.SolutionExecResult;
+import ru.zeker.common.dto.kafka.task.TaskTestsChangedEvent;
+import ru.zeker.common.dto.solution.SolutionStatus;
+import ru.zeker.common.dto.task.response.TaskResponse;
+import ru.zeker.solution.client.TaskClient;
+import ru.zeker.solution.config.RejudgeProperties;
+import ru.zeker.solution.domain.mapper.SolutionMapper;
+import ru.zeker.solution.domain.model.entity.RejudgeJob;
+import ru.zeker.solution.domain.model.entity.RejudgeResult;
+import ru.zeker.solution.domain.model.entity.Solution;
+import ru.zeker.solution.domain.model.enums.RejudgeStatus;
+import ru.zeker.solution.repository.RejudgeJobRepository;
+import ru.zeker.solution.repository.RejudgeResultRepository;
+import ru.zeker.solution.repository.SolutionRepository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Перепроверка принятых решений задачи после изменения её тестов.
+ * <p>
+ * Решения перебираются курсором по id и отправляются в solution.exec.request пачками
+ * не быстрее ratePerSecond и не больше maxOutstanding одновременно. В sandbox-service
+ * они идут в очередь BACKGROUND с небольшой долей мощности, поэтому решения пользователей не ждут.
+ * Курсор сохраняется после каждой пачки, и после перезапуска задание продолжается с того же места.
+ * <p>
+ * Вердикты перепроверки пишутся в rejudge_results: статус и feedback решения остаются такими,
+ * какими их видел пользователь
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RejudgeService {
+
+    private static final String UPDATE_RESULT_SQL = """
+            UPDATE rejudge_results
+            SET status = ?, error = ?, updated_at = ?, version = version + 1
+            WHERE rejudge_job_id = ? AND solution_id = ? AND status = 'PENDING'
+            """;
+    private static final String TIMEOUT_ERROR = "Rejudge did not complete in time (timeout)";
+
+    private final RejudgeJobRepository jobRepository;
+    private final RejudgeResultRepository resultRepository;
+    private final SolutionRepository solutionRepository;
+    private final SolutionMapper solutionMapper;
+    private final TaskClient taskClient;
+    private final KafkaProducer kafkaProducer;
+    private final RejudgeProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Создаёт задание перепроверки. Идущее задание по этой задаче отменяется: уже перепроверенные
+     * им решения проверялись прежним набором тестов, а его запоздавшие результаты не смешиваются с новыми
+     */
+    @Transactional
+    public void schedule(TaskTestsChangedEvent event) {
+        RejudgeJob running = jobRepository.findFirstByTaskIdAndStatus(event.getTaskId(), RejudgeStatus.RUNNING)
+                .orElse(null);
+        if (running != null) {
+            if (Objects.equals(running.getTestsVersion(), event.getTestsVersion())) {
+                log.debug("Rejudge of task {} with tests {} is already running", event.getTaskId(), event.getTestsVersion());
+                return;
+            }
+            running.setStatus(RejudgeStatus.CANCELLED);
+            running.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(running);
+        }
+        jobRepository.save(RejudgeJob.builder()
+                .taskId(event.getTaskId())
+                .testsVersion(event.getTestsVersion())
+                .status(RejudgeStatus.RUNNING)
+                .build());
+        log.info("Rejudge of task {} scheduled for tests version {}", event.getTaskId(), event.getTestsVersion());
+    }
+
+    /**
+     * Задача загружается до блокировки задания, сообщения отправляются после коммита:
+     * строка задания не остаётся заблокированной на время вызовов task-service и Kafka
+     */
+    @Scheduled(fixedDelayString = "${solution.rejudge.interval-ms:1000}")
+    public void submitNextBatches() {
+        for (RejudgeJob job : jobRepository.findByStatus(RejudgeStatus.RUNNING)) {
+            TaskResponse task;
+            try {
+                // Мимо TaskCache: событие task.changed может прийти позже, а нужна уже новая версия тестов
+                task = taskClient.getTaskById(job.getTaskId());
+            } catch (FeignException.NotFound e) {
+                log.warn("Task {} no longer exists, finishing its rejudge", job.getTaskId());
+                transactionTemplate.executeWithoutResult(status -> jobRepository
+                        .findByIdAndStatus(job.getId(), RejudgeStatus.RUNNING)
+                        .ifPresent(this::complete));
+                continue;
+            } catch (FeignException e) {
+                log.warn("Failed to load task {} for rejudge, will retry: {}", job.getTaskId(), e.getMessage());
+                continue;
+            }
+
+            List<SolutionExecRequest> messages = transactionTemplate.execute(status -> nextBatch(job.getId(), task));
+            // Не отправленные сообщения завершатся по resultTimeout и попадут в ошибки задания
+            messages.forEach(kafkaProducer::sendEmailEvent);
+        }
+    }
+
+    /**
+     * Записывает вердикты перепроверки одним JDBC-пакетом. Результаты отменённых заданий
+     * и пришедшие после таймаута не применяются
+     */
+    @Transactional
+    public void applyResults(List<SolutionExecResult> results) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>(results.size());
+        for (SolutionExecResult result : results) {
+            String error = StringUtils.isNotBlank(result.getDescriptionError()) ? result.getDescriptionError() : null;
+            updates.add(new Object[]{result.getStatus().name(), error, now, result.getRejudgeJobId(),
+                    UUID.fromString(result.getSolutionId())});
+        }
+        jdbcTemplate.batchUpdate(UPDATE_RESULT_SQL, updates);
+    }
+
+    private List<SolutionExecRequest> nextBatch(UUID jobId, TaskResponse task) {
+        RejudgeJob job = jobRepository.findByIdAndStatus(jobId, RejudgeStatus.RUNNING).orElse(null);
+        if (job == null) {
+            return List.of();
+        }
+        if (!Objects.equals(job.getTestsVersion(), task.getTestsVersion())) {
+            // Тесты уже снова изменились: задание отменит событие task.tests.changed
+            log.debug("Rejudge of task {} waits for tests {}, task has {}",
+                    job.getTaskId(), job.getTestsVersion(), task.getTestsVersion());
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int expired = resultRepository.expirePending(job.getId(), SolutionStatus.PENDING, SolutionStatus.TIMEOUT,
+                TIMEOUT_ERROR, now.minus(properties.getResultTimeout()), now);
+        if (expired > 0) {
+            log.warn("Rejudge of task {}: {} solutions did not complete in time", job.getTaskId(), expired);
+        }
+
+        long outstanding = resultRepository.countByRejudgeJobIdAndStatus(job.getId(), SolutionStatus.PENDING);
+        int limit = (int) Math.min(properties.batchSize(), properties.getMaxOutstanding() - outstanding);
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        List<Solution> batch = nextSolutions(job, limit);
+        if (batch.isEmpty()) {
+            if (outstanding == 0) {
+                complete(job);
+            }
+            return List.of();
+        }
+
+        List<RejudgeResult> pending = new ArrayList<>(batch.size());
+        List<SolutionExecRequest> messages = new ArrayList<>(batch.size());
+        for (Solution solution : batch) {
+            pending.add(RejudgeResult.builder()
+                    .rejudgeJobId(job.getId())
+                    .solutionId(solution.getId())
+                    .status(SolutionStatus.PENDING)
+                    .build());
+            SolutionExecRequest message = solutionMapper.toKafkaMessage(solution, task);
+            message.setPriority(ExecutionPriority.BACKGROUND);
+            message.setRejudgeJobId(job.getId());
+            messages.add(message);
+        }
+        resultRepository.saveAll(pending);
+
+        job.setLastSolutionId(batch.getLast().getId());
+        job.setSubmitted(job.getSubmitted() + batch.size());
+        jobRepository.save(job);
+        log.debug("Rejudge of task {}: submitted {} more, {} in total", job.getTaskId(), batch.size(), job.getSubmitted());
+        return messages;
+    }
+
+    private List<Solution> nextSolutions(RejudgeJob job, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        return job.getLastSolutionId() == null
+                ? solutionRepository.findByTaskIdAndStatusOrderByIdAsc(job.getTaskId(), SolutionStatus.SUCCESS, page)
+                : solutionRepository.findByTaskIdAndStatusAndIdGreaterThanOrderByIdAsc(
+                job.getTaskId(), SolutionStatus.SUCCESS, job.getLastSolutionId(), page);
+    }
+
+    private void complete(RejudgeJob job) {
+        job.setStatus(RejudgeStatus.COMPLETED);
+        job.setFinishedAt(LocalDateTime.now());
+        job.setRegressed((int) resultRepository.countByRejudgeJobIdAndStatus(job.getId(), SolutionStatus.FAILED));
+        job.setErrors((int) resultRepository.countByRejudgeJobIdAndStatusIn(job.getId(),
+                EnumSet.of(SolutionStatus.TIMEOUT, SolutionStatus.SERVICE_UNAVAILABLE)));
+        jobRepository.save(job);
+        log.info("Rejudge of task {} completed in {} s: submitted={}, regressed={}, errors={}",
+                job.getTaskId(), Duration.between(job.getCreatedAt(), job.getFinishedAt()).toSeconds(),
+                job.getSubmitted(), job.getRegressed(), job.getErrors());
+    }
+}
@@ -2,28 +2,40 @@ package ru.zeker.solution.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.FeignException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import ru.zeker.common.dto.kafka.solution.SolutionExecProgress;
 import ru.zeker.common.dto.kafka.solution.SolutionExecRequest;
 import ru.zeker.common.dto.kafka.solution.SolutionExecResult;
+import ru.zeker.common.dto.kafka.solution.TestResult;
 import ru.zeker.common.dto.solution.SolutionStatus;
 import ru.zeker.common.dto.solution.request.SolutionRequest;
 import ru.zeker.common.dto.solution.response.DailyActivity;
-import ru.zeker.common.dto.task.response.TaskResponse;
 import ru.zeker.solution.client.TaskClient;
 import ru.zeker.solution.domain.mapper.SolutionMapper;
+import ru.zeker.solution.domain.model.dto.ProgressFeedback;
+import ru.zeker.solution.domain.model.dto.SolutionState;
+import ru.zeker.solution.domain.model.dto.TaskSummary;
 import ru.zeker.solution.domain.model.entity.Solution;
 import ru.zeker.solution.exception.SolutionNotFoundException;
 import ru.zeker.solution.repository.SolutionRepository;
+import ru.zeker.solution.service.UserProgressService.ProgressUpdate;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Slf4j
@@ -31,12 +43,30 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class SolutionService {
 
+    // version растёт, как при сохранении сущности: параллельное JPA-обновление получит конфликт версии.
+    // Без результатов тестов в сообщении ошибка добавляется к накопленному прогрессу, а не заменяет его
+    private static final String UPDATE_STATUS_SQL = """
+            UPDATE solutions
+            SET status = ?,
+                feedback = COALESCE(CAST(? AS jsonb), CASE
+                    WHEN CAST(? AS text) IS NULL THEN feedback
+                    ELSE (CASE WHEN jsonb_typeof(feedback) = 'object' THEN feedback ELSE '{}'::jsonb END)
+                         || jsonb_build_object('error', CAST(? AS text))
+                END),
+                updated_at = ?,
+                version = version + 1
+            WHERE id = ? AND status = 'PENDING'
+            """;
+    private static final String TIMEOUT_ERROR = "Execution did not complete in time (timeout)";
+
     private final SolutionRepository repository;
     private final KafkaProducer kafkaProducer;
     private final SolutionMapper solutionMapper;
+    private final TaskCache taskCache;
     private final TaskClient taskClient;
     private final UserProgressService userProgressService;
     private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
 
     @Transactional
     public Solution submitSolution(SolutionRequest request, String userId) {
@@ -49,8 +79,11 @@ public class SolutionService {
                 .build();
         solution = repository.save(solution);
 
-        TaskResponse taskResponse = taskClient.getTaskById(solution.getTaskId());
-        SolutionExecRequest message = solutionMapper.toKafkaMessage(solution, taskResponse.getTests());
+        TaskSummary task = taskCache.get(solution.getTaskId());
+        SolutionExecRequest message = task.testsVersion() != null
+                ? solutionMapper.toKafkaMessage(solution, task)
+                // Тесты без версии набора передаются в сообщении; в кэше их нет
+                : solutionMapper.toKafkaMessage(solution, taskClient.getTaskById(solution.getTaskId()));
         kafkaProducer.sendEmailEvent(message);
         return solution;
     }
@@ -65,36 +98,126 @@ public class SolutionService {
         return repository.findByUserId(userId);
     }
 
+    /**
+     * Применяет результат вместе с прогрессом пользователя одной транзакцией
+     *
+     * @return применённый результат; пусто, если решение уже не ожидает результата
+     */
     @Transactional
-    public void updateSolutionStatus(UUID solutionId, SolutionExecResult result) throws JsonProcessingException {
+    public Optional<AppliedResult> updateSolutionStatus(UUID solutionId, SolutionExecResult result) throws JsonProcessingException {
         Solution solution = repository.findById(solutionId)
                 .orElseThrow(SolutionNotFoundException::new);
 
         if (solution.getStatus() != SolutionStatus.PENDING) {
             log.warn("Attempt to update non-PENDING solution id={}, currentStatus={}, newStatus={}",
                     solutionId, solution.getStatus(), result.getStatus());
-            return;
+            return Optional.empty();
         }
 
         solution.setStatus(result.getStatus());
-        if (StringUtils.isNotBlank(result.getDescriptionError())) {
-            solution.setFeedback(objectMapper.writeValueAsString(result.getDescriptionError()));
+        String feedback = toFeedback(result);
+        if (feedback == null && errorOf(result) != null) {
+            feedback = withError(solution.getFeedback(), errorOf(result));
+        }
+        if (feedback != null) {
+            solution.setFeedback(feedback);
         }
         repository.save(solution);
+        AppliedResult applied = new AppliedResult(solutionId, solution.getTaskId(), solution.getUserId(), result.getStatus());
+        updateProgress(List.of(applied));
+        return Optional.of(applied);
     }
 
+    /**
+     * Применяет пакет результатов одной транзакцией вместе с прогрессом пользователей: состояние решений
+     * читается одним IN-запросом, статусы пишутся JDBC-пакетом. Обновляются только решения, ещё ожидающие
+     * результата. Ошибка при обновлении прогресса откатывает и вердикты: пакет будет доставлен повторно
+     *
+     * @param results результаты по id решения
+     * @return применённые результаты
+     */
     @Transactional
-    public void updateProgressIfNeeded(UUID solutionId, boolean success) {
-        Solution solution = repository.findById(solutionId)
-                .orElseThrow(SolutionNotFoundException::new);
+    public List<AppliedResult> applyExecutionResults(Map<UUID, SolutionExecResult> results) throws JsonProcessingException {
+        Map<UUID, SolutionState> states = new HashMap<>();
+        for (SolutionState state : repository.findStatesByIdIn(results.keySet())) {
+            states.put(state.getId(), state);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>(results.size());
+        List<AppliedResult> candidates = new ArrayList<>(results.size());
+        for (Map.Entry<UUID, SolutionExecResult> entry : results.entrySet()) {
+            UUID solutionId = entry.getKey();
+            SolutionExecResult result = entry.getValue();
+            SolutionState state = states.get(solutionId);
+            if (state == null) {
+                log.warn("Execution result for unknown solution id={}", solutionId);
+                continue;
+            }
+            if (state.getStatus() != SolutionStatus.PENDING) {
+                log.warn("Attempt to update non-PENDING solution id={}, currentStatus={}, newStatus={}",
+                        solutionId, state.getStatus(), result.getStatus());
+                continue;
+            }
+            String error = errorOf(result);
+            updates.add(new Object[]{result.getStatus().name(), toFeedback(result), error, error, now, solutionId});
+            candidates.add(new AppliedResult(solutionId, state.getTaskId(), state.getUserId(), result.getStatus()));
+        }
+        if (updates.isEmpty()) {
+            return List.of();
+        }
 
-        TaskResponse task = taskClient.getTaskById(solution.getTaskId());
-        double difficulty = task.getDifficulty().getRating();
-        int tagCount = task.getTags().size();
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, updates);
+        List<AppliedResult> applied = new ArrayList<>(candidates.size());
+        for (int i = 0; i < counts.length; i++) {
+            // 0 - статус успели сменить между чтением и записью (например, таймаут)
+            if (counts[i] != 0) {
+                applied.add(candidates.get(i));
+            }
+        }
+        updateProgress(applied);
+        return applied;
+    }
 
-        for (String topic : task.getTags()) {
-            userProgressService.updateOrCreate(topic, solution.getUserId(), difficulty, success, tagCount);
+    /**
+     * Обновляет прогресс пользователей по пакету результатов одним batch в порядке пакета:
+     * результаты ключуются по пользователю, поэтому вердикты одного пользователя применяются
+     * в том порядке, в котором пришли. Недоступность sandbox прогресс не меняет
+     */
+    private void updateProgress(List<AppliedResult> applied) {
+        // null - задача удалена, повторно в этом пакете не запрашиваем
+        Map<UUID, TaskSummary> tasks = new HashMap<>();
+        List<ProgressUpdate> updates = new ArrayList<>();
+        for (AppliedResult result : applied) {
+            if (result.status() == SolutionStatus.SERVICE_UNAVAILABLE) {
+                continue;
+            }
+            if (!tasks.containsKey(result.taskId())) {
+                tasks.put(result.taskId(), findTask(result.taskId()));
+            }
+            TaskSummary task = tasks.get(result.taskId());
+            if (task != null) {
+                updates.add(toProgressUpdate(task, result.userId(), result.status() == SolutionStatus.SUCCESS));
+            }
+        }
+        userProgressService.update(updates);
+    }
+
+    /**
+     * Добавляет результат завершившегося теста в feedback выполняющегося решения.
+     * События одного решения приходят по порядку из одной партиции, поэтому чтение и запись не гоняются
+     */
+    @Transactional
+    public void applyExecutionProgress(UUID solutionId, SolutionExecProgress progress) throws JsonProcessingException {
+        Solution solution = repository.findById(solutionId)
+                .orElseThrow(SolutionNotFoundException::new);
+        if (solution.getStatus() != SolutionStatus.PENDING || progress.getTestResult() == null) {
+            return;
         }
+
+        ProgressFeedback feedback = readProgress(solution.getFeedback());
+        feedback.add(progress.getTestIndex(), progress.getTestCount(), progress.getTestResult());
+        repository.updateFeedbackIfStatus(solutionId, objectMapper.writeValueAsString(feedback), SolutionStatus.PENDING);
     }
 
     public List<DailyActivity> getUserActivity(UUID userId, int lastDays) {
@@ -125,7 +248,7 @@ public class SolutionService {
 
             for (Solution solution : staleSolutions) {
                 solution.setStatus(SolutionStatus.TIMEOUT);
-                solution.setFeedback(objectMapper.writeValueAsString("Execution did not complete in time (timeout)"));
+                solution.setFeedback(withError(solution.getFeedback(), TIMEOUT_ERROR));
             }
 
             repository.saveAll(staleSolutions);
@@ -133,7 +256,74 @@ public class SolutionService {
         }
     }
 
+    /**
+     * null - задача удалена, прогресс по ней не обновляется; прочие ошибки пробрасываются,
+     * чтобы пакет был обработан повторно
+     */
+    private TaskSummary findTask(UUID taskId) {
+        try {
+            return taskCache.get(taskId);
+        } catch (FeignException.NotFound e) {
+            log.warn("Task {} no longer exists, skipping progress update", taskId);
+            return null;
+        }
+    }
+
+    private static ProgressUpdate toProgressUpdate(TaskSummary task, UUID userId, boolean success) {
+        return new ProgressUpdate(userId, task.tags(), task.difficulty().getRating(), success);
+    }
+
+    /**
+     * feedback по результатам тестов итогового сообщения вместе с ошибкой; null - в сообщении нет
+     * результатов тестов, и накопленный прогресс сохраняется
+     */
+    private String toFeedback(SolutionExecResult result) throws JsonProcessingException {
+        if (result.getTestResults() == null) {
+            return null;
+        }
+        // Итоговые результаты заменяют прогресс, который мог прийти не полностью
+        ProgressFeedback feedback = new ProgressFeedback();
+        feedback.setError(errorOf(result));
+        List<TestResult> testResults = result.getTestResults();
+        // При остановке на первой ошибке в списке только завершённые тесты, каждый со своим номером
+        int testCount = result.getTestCount() != null && result.getTestCount() > 0
+                ? result.getTestCount()
+                : testResults.size();
+        for (int i = 0; i < testResults.size(); i++) {
+            TestResult testResult = testResults.get(i);
+            int index = testResult.getIndex() != null ? testResult.getIndex() : i;
+            feedback.add(index, testCount, testResult);
+        }
+        return objectMapper.writeValueAsString(feedback);
+    }
+
+    // Ошибка рядом с уже полученными результатами тестов
+    private String withError(String feedback, String error) throws JsonProcessingException {
+        ProgressFeedback progress = readProgress(feedback);
+        progress.setError(error);
+        return objectMapper.writeValueAsString(progress);
+    }
+
+    private static String errorOf(SolutionExecResult result) {
+        return StringUtils.isNotBlank(result.getDescriptionError()) ? result.getDescriptionError() : null;
+    }
+
+    private ProgressFeedback readProgress(String feedback) {
+        if (StringUtils.isBlank(feedback)) {
+            return new ProgressFeedback();
+        }
+        try {
+            return objectMapper.readValue(feedback, ProgressFeedback.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Unexpected feedback of pending solution, starting progress over: {}", e.getMessage());
+            return new ProgressFeedback();
+        }
+    }
+
     private boolean isOwner(Solution solution, UUID userId) {
         return solution.getUserId().equals(userId);
     }
+
+    public record AppliedResult(UUID solutionId, UUID taskId, UUID userId, SolutionStatus status) {
+    }
 }
@@ -0,0 +1,97 @@
+package ru.zeker.solution.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.zeker.solution.client.TaskClient;
+import ru.zeker.solution.domain.model.dto.TaskSummary;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задачи из task-service для отправки решений и учёта прогресса. Хранится только {@link TaskSummary}:
+ * тесты и тексты условия в памяти не держатся.
+ * <p>
+ * Записи сбрасываются по событиям task.changed. Через refresh-after-write запись перечитывается
+ * в фоне, а пока task-service недоступен, отдаётся прежняя копия; expire-after-write ограничивает
+ * её возраст на случай потерянного события
+ */
+@Slf4j
+@Service
+public class TaskCache {
+
+    private final LoadingCache<UUID, CachedTask> tasks;
+    private final Timer entryAge;
+    private final Timer invalidationLag;
+
+    public TaskCache(TaskClient taskClient,
+                     MeterRegistry meterRegistry,
+                     @Value("${solution.task-cache.max-size:10000}") long maxSize,
+                     @Value("${solution.task-cache.refresh-after-write:PT5M}") Duration refreshAfterWrite,
+                     @Value("${solution.task-cache.expire-after-write:PT24H}") Duration expireAfterWrite) {
+        this.tasks = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refreshAfterWrite)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build(new TaskLoader(taskClient));
+        // cache.gets{result=hit|miss}, cache.evictions и т.д. с тегом cache=task
+        CaffeineCacheMetrics.monitor(meterRegistry, tasks, "task");
+        this.entryAge = Timer.builder("task.cache.entry.age")
+                .description("Age of the cached task returned on a hit")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.invalidationLag = Timer.builder("task.cache.invalidation.lag")
+                .description("Time from a task change in task-service to the cache invalidation")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Задача по id; при промахе загружается из task-service, ошибки Feign пробрасываются
+     */
+    public TaskSummary get(UUID taskId) {
+        CachedTask cached = tasks.get(taskId);
+        entryAge.record(System.currentTimeMillis() - cached.loadedAt(), TimeUnit.MILLISECONDS);
+        return cached.task();
+    }
+
+    /**
+     * @param changedAt время изменения задачи (метка времени события), для метрики задержки сброса
+     */
+    public void invalidate(UUID taskId, long changedAt) {
+        tasks.invalidate(taskId);
+        invalidationLag.record(Math.max(0, System.currentTimeMillis() - changedAt), TimeUnit.MILLISECONDS);
+        log.debug("Task {} evicted from cache", taskId);
+    }
+
+    private record CachedTask(TaskSummary task, long loadedAt) {
+    }
+
+    private record TaskLoader(TaskClient taskClient) implements CacheLoader<UUID, CachedTask> {
+
+        @Override
+        public CachedTask load(UUID taskId) {
+            return new CachedTask(TaskSummary.of(taskClient.getTaskById(taskId)), System.currentTimeMillis());
+        }
+
+        // Прочие ошибки оставляют прежнюю копию до следующей попытки
+        @Override
+        public CachedTask reload(UUID taskId, CachedTask oldValue) {
+            try {
+                return load(taskId);
+            } catch (FeignException.NotFound e) {
+                return null;
+            }
+        }
+    }
+}
@@ -1,15 +1,22 @@
 package ru.zeker.solution.service;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import ru.zeker.solution.domain.model.entity.UserProgress;
 import ru.zeker.solution.repository.UserProgressRepository;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -26,7 +33,20 @@ public class UserProgressService {
     private static final double SUCCESS_FACTOR = 0.1;
     private static final double FAILURE_BASE = 0.05;
 
+    // Для новой темы уверенность считается от значения по умолчанию в Java, для существующей - в SQL
+    private static final String UPSERT_SQL = """
+            INSERT INTO user_progress (id, created_at, updated_at, version, user_id, topic, confidence)
+            SELECT gen_random_uuid(), ?, ?, 0, ?, topic, ?
+            FROM unnest(CAST(? AS varchar[])) AS topic
+            ON CONFLICT (user_id, topic) DO UPDATE
+            SET confidence = LEAST(%1$s, GREATEST(%2$s,
+                    user_progress.confidence + (%1$s - user_progress.confidence) * ? + ?)),
+                updated_at = EXCLUDED.updated_at,
+                version = user_progress.version + 1
+            """.formatted(MAX_CONFIDENCE, MIN_CONFIDENCE);
+
     private final UserProgressRepository repository;
+    private final JdbcTemplate jdbcTemplate;
 
     public List<UserProgress> getUserProgress(UUID userId) {
         return repository.findByUserId(userId);
@@ -47,27 +67,64 @@ public class UserProgressService {
                 .collect(Collectors.toMap(UserProgress::getTopic, UserProgress::getConfidence));
     }
 
-    @Transactional
-    public void updateOrCreate(String topic, UUID userId, double difficulty, boolean success, int totalTags) {
-        UserProgress progress = repository
-                .findByUserIdAndTopic(userId, topic)
-                .orElseGet(() -> UserProgress.builder()
-                        .userId(userId)
-                        .topic(topic)
-                        .confidence(DEFAULT_CONFIDENCE)
-                        .build()
-                );
+    /**
+     * Обновляет уверенность по темам одним INSERT ... ON CONFLICT на задачу; пакет уходит одним batch.
+     * Новое значение считается в SQL от текущего, поэтому параллельные вердикты одного пользователя
+     * не теряют обновления и не конфликтуют по версии
+     */
+    public void update(List<ProgressUpdate> updates) {
+        List<ProgressUpdate> nonEmpty = updates.stream()
+                .filter(update -> !update.topics().isEmpty())
+                .toList();
+        if (nonEmpty.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ProgressUpdate update = nonEmpty.get(i);
+                Delta delta = Delta.of(update);
+                // Один порядок тем во всех запросах: строки блокируются без взаимоблокировок
+                String[] topics = new TreeSet<>(update.topics()).toArray(String[]::new);
+                ps.setTimestamp(1, now);
+                ps.setTimestamp(2, now);
+                ps.setObject(3, update.userId());
+                ps.setDouble(4, delta.apply(DEFAULT_CONFIDENCE));
+                ps.setArray(5, ps.getConnection().createArrayOf("varchar", topics));
+                ps.setDouble(6, delta.gain());
+                ps.setDouble(7, delta.shift());
+            }
 
-        double oldConfidence = progress.getConfidence();
+            @Override
+            public int getBatchSize() {
+                return nonEmpty.size();
+            }
+        });
+    }
+
+    /**
+     * Вердикт пользователя по задаче с темами topics
+     */
+    public record ProgressUpdate(UUID userId, Collection<String> topics, double difficulty, boolean success) {
+    }
 
-        double baseDelta = success
-                ? (MAX_CONFIDENCE - oldConfidence) * SUCCESS_FACTOR * difficulty
-                : -FAILURE_BASE * (DIFFICULTY_WEIGHT_SUM - difficulty);
+    /**
+     * Изменение уверенности: confidence + (MAX - confidence) * gain + shift с ограничением диапазоном.
+     * Успех приближает к максимуму пропорционально сложности, неудача штрафует тем сильнее, чем задача проще;
+     * вклад делится между темами задачи
+     */
+    private record Delta(double gain, double shift) {
 
-        double delta = baseDelta / Math.max(1, totalTags);
+        static Delta of(ProgressUpdate update) {
+            int totalTags = Math.max(1, update.topics().size());
+            return update.success()
+                    ? new Delta(SUCCESS_FACTOR * update.difficulty() / totalTags, 0)
+                    : new Delta(0, -FAILURE_BASE * (DIFFICULTY_WEIGHT_SUM - update.difficulty()) / totalTags);
+        }
 
-        double newConfidence = Math.min(MAX_CONFIDENCE, Math.max(MIN_CONFIDENCE, oldConfidence + delta));
-        progress.setConfidence(newConfidence);
-        repository.save(progress);
+        double apply(double confidence) {
+            return Math.min(MAX_CONFIDENCE, Math.max(MIN_CONFIDENCE, confidence + (MAX_CONFIDENCE - confidence) * gain + shift));
+        }
     }
 }
@@ -0,0 +1,201 @@
+package ru.zeker.solution.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.zeker.common.dto.kafka.solution.SolutionExecResult;
+import ru.zeker.common.dto.kafka.solution.TestResult;
+import ru.zeker.common.dto.solution.Language;
+import ru.zeker.common.dto.solution.SolutionStatus;
+import ru.zeker.common.dto.task.Difficulty;
+import ru.zeker.solution.client.TaskClient;
+import ru.zeker.solution.domain.mapper.SolutionMapper;
+import ru.zeker.solution.domain.model.dto.TaskSummary;
+import ru.zeker.solution.domain.model.entity.Solution;
+import ru.zeker.solution.repository.SolutionRepository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * UPDATE_STATUS_SQL на настоящем Postgres: применяются только результаты ожидающих решений,
+ * ошибка без результатов тестов дописывается в накопленный feedback
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({SolutionService.class, UserProgressService.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class SolutionServiceTests {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @MockitoBean
+    private KafkaProducer kafkaProducer;
+
+    @MockitoBean
+    private SolutionMapper solutionMapper;
+
+    @MockitoBean
+    private TaskCache taskCache;
+
+    @MockitoBean
+    private TaskClient taskClient;
+
+    @Autowired
+    private SolutionService solutionService;
+
+    @Autowired
+    private SolutionRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID taskId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        when(taskCache.get(any())).thenReturn(new TaskSummary(taskId, Difficulty.MEDIUM, Set.of("graphs"), "v1", null));
+    }
+
+    @Test
+    void onlyPendingSolutionsAreUpdated() throws Exception {
+        UUID pending = save(SolutionStatus.PENDING, null);
+        UUID finished = save(SolutionStatus.FAILED, "{\"error\":\"old\"}");
+
+        List<SolutionService.AppliedResult> applied = solutionService.applyExecutionResults(results(
+                pending, result(SolutionStatus.SUCCESS, null, List.of(passed(0))),
+                finished, result(SolutionStatus.SUCCESS, null, List.of(passed(0)))));
+
+        assertEquals(List.of(pending), applied.stream().map(SolutionService.AppliedResult::solutionId).toList());
+        assertEquals("SUCCESS", status(pending));
+        assertEquals("FAILED", status(finished));
+        assertEquals("old", feedback(finished).get("error").asText());
+        // Прогресс обновляется в той же транзакции и только по применённому результату
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_progress WHERE user_id = ?", Integer.class, userId));
+    }
+
+    @Test
+    void errorIsMergedIntoAccumulatedFeedback() throws Exception {
+        UUID withProgress = save(SolutionStatus.PENDING, "{\"completed\":1,\"total\":3,\"tests\":[{\"index\":0,\"passed\":true}]}");
+        UUID withoutFeedback = save(SolutionStatus.PENDING, null);
+        UUID withArray = save(SolutionStatus.PENDING, "[]");
+
+        SolutionExecResult timeout = result(SolutionStatus.TIMEOUT, "Execution timed out", null);
+        solutionService.applyExecutionResults(results(withProgress, timeout, withoutFeedback, timeout, withArray, timeout));
+
+        JsonNode merged = feedback(withProgress);
+        assertEquals("Execution timed out", merged.get("error").asText());
+        assertEquals(1, merged.get("completed").asInt());
+        assertEquals(1, merged.get("tests").size());
+
+        assertEquals("Execution timed out", feedback(withoutFeedback).get("error").asText());
+        assertTrue(feedback(withArray).isObject());
+        assertEquals("Execution timed out", feedback(withArray).get("error").asText());
+    }
+
+    @Test
+    void finalTestResultsReplaceProgressAndKeepError() throws Exception {
+        UUID solution = save(SolutionStatus.PENDING, "{\"completed\":1,\"total\":3,\"error\":\"stale\"}");
+
+        solutionService.applyExecutionResults(results(
+                solution, result(SolutionStatus.FAILED, "Wrong Answer", List.of(passed(0), failed(1)))));
+
+        JsonNode feedback = feedback(solution);
+        assertEquals("FAILED", status(solution));
+        assertEquals("Wrong Answer", feedback.get("error").asText());
+        assertEquals(2, feedback.get("tests").size());
+    }
+
+    @Test
+    void resultWithoutErrorAndTestsKeepsFeedback() throws Exception {
+        String progress = "{\"completed\":2,\"total\":2}";
+        UUID solution = save(SolutionStatus.PENDING, progress);
+
+        solutionService.applyExecutionResults(results(solution, result(SolutionStatus.SUCCESS, " ", null)));
+
+        assertEquals("SUCCESS", status(solution));
+        assertEquals(objectMapper.readTree(progress), feedback(solution));
+    }
+
+    private UUID save(SolutionStatus status, String feedback) {
+        return repository.saveAndFlush(Solution.builder()
+                .userId(userId)
+                .taskId(taskId)
+                .code("print(1)")
+                .language(Language.PYTHON)
+                .status(status)
+                .feedback(feedback)
+                .build()).getId();
+    }
+
+    // Мимо JPA: статус пишется JDBC-пакетом, а сущности в контексте теста остались бы прежними
+    private String status(UUID solutionId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM solutions WHERE id = ?", String.class, solutionId);
+    }
+
+    private JsonNode feedback(UUID solutionId) throws Exception {
+        return objectMapper.readTree(jdbcTemplate.queryForObject(
+                "SELECT CAST(feedback AS text) FROM solutions WHERE id = ?", String.class, solutionId));
+    }
+
+    private static Map<UUID, SolutionExecResult> results(Object... idsAndResults) {
+        Map<UUID, SolutionExecResult> results = new LinkedHashMap<>();
+        for (int i = 0; i < idsAndResults.length; i += 2) {
+            results.put((UUID) idsAndResults[i], (SolutionExecResult) idsAndResults[i + 1]);
+        }
+        return results;
+    }
+
+    private SolutionExecResult result(SolutionStatus status, String error, List<TestResult> testResults) {
+        return SolutionExecResult.builder()
+                .userId(userId)
+                .status(status)
+                .descriptionError(error)
+                .testResults(testResults)
+                .build();
+    }
+
+    private static TestResult passed(int index) {
+        return TestResult.builder().index(index).passed(true).build();
+    }
+
+    private static TestResult failed(int index) {
+        return TestResult.builder().index(index).passed(false).build();
+    }
+}
@@ -0,0 +1,111 @@
+package ru.zeker.solution.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.zeker.common.dto.task.Difficulty;
+import ru.zeker.solution.client.TaskClient;
+import ru.zeker.solution.service.UserProgressService.ProgressUpdate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Формула UPSERT_SQL на настоящем Postgres: для новой темы значение считается в Java,
+ * для существующей - в SQL, и оба пути должны давать одно и то же
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(UserProgressService.class)
+class UserProgressServiceTests {
+
+    private static final double DELTA = 1e-9;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    // Клиент регистрирует @EnableFeignClients приложения, Feign в срезе JPA не настроен
+    @MockitoBean
+    private TaskClient taskClient;
+
+    @Autowired
+    private UserProgressService userProgressService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @Test
+    void newAndExistingTopicsFollowTheSameFormula() {
+        // Успех по MEDIUM с двумя темами: 0.5 + (1 - 0.5) * 0.1 * 1.0 / 2
+        userProgressService.update(List.of(update(List.of("graphs", "dp"), Difficulty.MEDIUM, true)));
+        confidences().values().forEach(confidence -> assertEquals(0.525, confidence, DELTA));
+
+        // Неудача по EASY с двумя темами: 0.525 - 0.05 * (2.0 - 0.8) / 2
+        userProgressService.update(List.of(update(List.of("graphs", "dp"), Difficulty.EASY, false)));
+        confidences().values().forEach(confidence -> assertEquals(0.495, confidence, DELTA));
+
+        // Только вторая тема: первая не меняется
+        userProgressService.update(List.of(update(List.of("dp"), Difficulty.HARD, true)));
+        assertEquals(0.495, confidences().get("graphs"), DELTA);
+        assertEquals(0.495 + (1 - 0.495) * 0.1 * 1.2, confidences().get("dp"), DELTA);
+    }
+
+    @Test
+    void updatesOfOneBatchApplyInOrderAndStayWithinBounds() {
+        List<ProgressUpdate> failures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            failures.add(update(List.of("strings"), Difficulty.EASY, false));
+        }
+        // Каждая неудача снимает 0.06: после девятой значение упёрлось бы в -0.04
+        userProgressService.update(failures);
+        assertEquals(0.0, confidences().get("strings"), DELTA);
+
+        List<ProgressUpdate> successes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            successes.add(update(List.of("strings"), Difficulty.HARD, true));
+        }
+        userProgressService.update(successes);
+        double confidence = confidences().get("strings");
+        assertEquals(1.0, confidence, 1e-6);
+        assertTrue(confidence <= 1.0);
+    }
+
+    // Мимо JPA: строки пишутся JDBC, а сущности в контексте теста остались бы прежними
+    private Map<String, Double> confidences() {
+        Map<String, Double> confidences = new HashMap<>();
+        jdbcTemplate.query("SELECT topic, confidence FROM user_progress WHERE user_id = ?",
+                rs -> {
+                    confidences.put(rs.getString("topic"), rs.getDouble("confidence"));
+                }, userId);
+        return confidences;
+    }
+
+    private ProgressUpdate update(List<String> topics, Difficulty difficulty, boolean success) {
+        return new ProgressUpdate(userId, topics, difficulty.getRating(), success);
+    }
+}
@@ -19,6 +19,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.zeker.common.dto.task.Difficulty;
 import ru.zeker.common.dto.task.response.TaskResponse;
+import ru.zeker.common.dto.task.response.TestSuiteResponse;
 import ru.zeker.task.domain.mapper.TaskMapper;
 import ru.zeker.task.service.TaskService;
 
@@ -103,6 +104,31 @@ public class TaskController {
     }
 
 
+    // ====================== GET TEST SUITE ==========================
+    @Operation(
+            summary = "Получить набор тестов задачи",
+            description = """
+                    Возвращает тесты задачи и их версию (хэш набора). \s
+                    Используется sandbox-service: сообщения на выполнение содержат только taskId и версию.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Набор тестов найден",
+                    content = @Content(schema = @Schema(implementation = TestSuiteResponse.class))
+            ),
+            @ApiResponse(responseCode = "404", description = "Задача не найдена")
+    })
+    @GetMapping("/{id}/tests")
+    public ResponseEntity<TestSuiteResponse> getTestSuite(
+            @Parameter(description = "UUID задачи", required = true)
+            @PathVariable("id") UUID id
+    ) {
+        return ResponseEntity.ok(taskService.getTestSuite(id));
+    }
+
+
     // ====================== GET RANDOM TASKS =========================
     @Operation(
             summary = "Получить случайные задачи",
@@ -2,6 +2,7 @@ package ru.zeker.task.domain.mapper;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import ru.zeker.common.dto.task.OutputCheckMode;
 import ru.zeker.common.dto.task.request.TaskRequest;
 import ru.zeker.common.dto.task.response.TaskResponse;
 import ru.zeker.task.domain.model.entity.Tag;
@@ -28,6 +29,7 @@ public interface TaskMapper {
                 .tags(tagEntities)
                 .templateCode(request.getTemplateCode())
                 .tests(request.getTests())
+                .checkMode(Objects.requireNonNullElse(request.getCheckMode(), OutputCheckMode.EXACT))
                 .build();
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package ru.zeker.task.domain.model.entity;
 
 import com.vladmihalcea.hibernate.type.json.JsonType;
 import ru.zeker.common.dto.task.Difficulty;
+import ru.zeker.common.dto.task.OutputCheckMode;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -10,6 +11,9 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,6 +25,7 @@ import org.hibernate.annotations.Type;
 import org.hibernate.proxy.HibernateProxy;
 import ru.zeker.common.dto.task.TestCase;
 import ru.zeker.common.model.BaseEntity;
+import ru.zeker.common.util.TestSuiteVersion;
 
 import java.util.List;
 import java.util.Objects;
@@ -60,6 +65,29 @@ public class Task extends BaseEntity {
     @Column(columnDefinition = "jsonb", nullable = false)
     private List<TestCase> tests;
 
+    // Хэш набора тестов: sandbox-service получает тесты по taskId и этой версии, а не в каждом сообщении
+    @Column(length = 64)
+    private String testsVersion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private OutputCheckMode checkMode = OutputCheckMode.EXACT;
+
+    @PrePersist
+    @PreUpdate
+    void updateTestsVersion() {
+        testsVersion = tests == null ? null : TestSuiteVersion.of(tests);
+    }
+
+    // Строки, созданные до появления колонки, получают версию при чтении
+    @PostLoad
+    void fillMissingTestsVersion() {
+        if (testsVersion == null) {
+            updateTestsVersion();
+        }
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
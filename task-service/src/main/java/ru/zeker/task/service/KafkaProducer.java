@@ -0,0 +1,37 @@
+package ru.zeker.task.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.zeker.common.dto.kafka.task.TaskChangedEvent;
+import ru.zeker.common.dto.kafka.task.TaskTestsChangedEvent;
+
+@Service
+@RequiredArgsConstructor
+public class KafkaProducer {
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    public void sendTestsChangedEvent(TaskTestsChangedEvent event) {
+        sendAfterCommit("task.tests.changed", event.getTaskId().toString(), event);
+    }
+
+    public void sendTaskChangedEvent(TaskChangedEvent event) {
+        sendAfterCommit("task.changed", event.getTaskId().toString(), event);
+    }
+
+    // Получатель сразу перечитывает задачу: до коммита он увидел бы старую версию
+    private void sendAfterCommit(String topic, String key, Object event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            kafkaTemplate.send(topic, key, event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                kafkaTemplate.send(topic, key, event);
+            }
+        });
+    }
+}
@@ -8,8 +8,13 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import ru.zeker.common.dto.kafka.task.TaskChangedEvent;
+import ru.zeker.common.dto.kafka.task.TaskTestsChangedEvent;
 import ru.zeker.common.dto.task.Difficulty;
+import ru.zeker.common.dto.task.OutputCheckMode;
 import ru.zeker.common.dto.task.request.TaskRequest;
+import ru.zeker.common.dto.task.response.TestSuiteResponse;
+import ru.zeker.common.util.TestSuiteVersion;
 import ru.zeker.task.domain.mapper.TaskMapper;
 import ru.zeker.task.domain.model.entity.Tag;
 import ru.zeker.task.domain.model.entity.Task;
@@ -18,6 +23,7 @@ import ru.zeker.task.repository.TaskRepository;
 import ru.zeker.task.repository.specification.TaskSpecification;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 
@@ -29,6 +35,7 @@ public class TaskService {
     private final TaskRepository repository;
     private final TagService tagService;
     private final TaskMapper taskMapper;
+    private final KafkaProducer kafkaProducer;
 
     public Page<Task> getTasks(String title, List<Difficulty> difficulties, List<String> tags, int count) {
         log.debug("Find task with parameters title={}, diffList={}, tags={}", title, difficulties, tags);
@@ -47,6 +54,16 @@ public class TaskService {
                 .orElseThrow(TaskNotFoundException::new);
     }
 
+    public TestSuiteResponse getTestSuite(UUID id) {
+        log.debug("Find test suite of task {}", id);
+        Task task = getTask(id);
+        return TestSuiteResponse.builder()
+                .taskId(task.getId())
+                .version(task.getTestsVersion())
+                .tests(task.getTests())
+                .build();
+    }
+
     public List<Task> getRandomTasks(int count) {
         log.debug("Find random {} tasks", count);
         return repository.findRandomTasks(PageRequest.of(0, count))
@@ -73,11 +90,22 @@ public class TaskService {
         task.setDescription(request.getDescription());
         task.setDifficulty(request.getDifficulty());
         task.setTemplateCode(request.getTemplateCode());
+        task.setCheckMode(Objects.requireNonNullElse(request.getCheckMode(), OutputCheckMode.EXACT));
+        task.setTests(request.getTests());
 
         Set<Tag> tagEntities = tagService.findOrCreateTags(request.getTags());
         task.setTags(tagEntities);
 
-        return repository.save(task);
+        // Версия пересчитывается при flush, поэтому сравнивается заранее
+        String previousVersion = task.getTestsVersion();
+        String testsVersion = TestSuiteVersion.of(request.getTests());
+        task = repository.save(task);
+        if (!testsVersion.equals(previousVersion)) {
+            log.info("Tests of task {} changed, requesting rejudge", id);
+            kafkaProducer.sendTestsChangedEvent(new TaskTestsChangedEvent(id, testsVersion));
+        }
+        kafkaProducer.sendTaskChangedEvent(new TaskChangedEvent(id, false));
+        return task;
     }
 
     @Transactional
@@ -89,6 +117,7 @@ public class TaskService {
         }
 
         repository.deleteById(id);
+        kafkaProducer.sendTaskChangedEvent(new TaskChangedEvent(id, true));
     }
 
     public boolean hasAnyTasks() {